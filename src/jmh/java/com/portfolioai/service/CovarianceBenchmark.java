@@ -0,0 +1,66 @@
+package com.portfolioai.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * CovarianceEngine against the pairwise loop it replaced (both means recomputed
+ * for every (i, j), full n x n matrix), over three years of daily returns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CovarianceBenchmark {
+
+    private static final int PERIODS = 756;
+
+    @Param({"3", "50", "500"})
+    int assets;
+
+    private ReturnsMatrix returns;
+    private double[][] rows;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(3);
+        double[] data = new double[assets * PERIODS];
+        for (int i = 0; i < data.length; i++) data[i] = rnd.nextGaussian() * 0.01;
+        int[] days = new int[PERIODS];
+        for (int t = 0; t < PERIODS; t++) days[t] = t;
+        returns = new ReturnsMatrix(assets, PERIODS, days, data);
+        rows = new double[assets][];
+        for (int i = 0; i < assets; i++) rows[i] = returns.row(i);
+    }
+
+    @Benchmark
+    public double[][] engine() {
+        return CovarianceEngine.covariance(returns);
+    }
+
+    @Benchmark
+    public double[][] pairwise() {
+        double[][] cov = new double[assets][assets];
+        for (int i = 0; i < assets; i++) {
+            for (int j = 0; j < assets; j++) cov[i][j] = covariance(rows[i], rows[j]);
+        }
+        return cov;
+    }
+
+    private static double covariance(double[] x, double[] y) {
+        double meanX = Arrays.stream(x).average().orElse(0);
+        double meanY = Arrays.stream(y).average().orElse(0);
+        double sum = 0;
+        for (int i = 0; i < x.length; i++) sum += (x[i] - meanX) * (y[i] - meanY);
+        return sum / (x.length - 1);
+    }
+}
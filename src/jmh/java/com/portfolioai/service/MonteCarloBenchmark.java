@@ -0,0 +1,72 @@
+package com.portfolioai.service;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * MonteCarloEngine throughput in paths per second (one year horizon, three
+ * assets, every core). Score = paths/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MonteCarloBenchmark {
+
+    private static final int PATHS = 100_000;
+    private static final int PERIODS = 756;
+
+    @Param({"GAUSSIAN", "BOOTSTRAP"})
+    MonteCarloEngine.Method method;
+
+    private final double[] mu = {4e-4, 3e-4, 1e-4};
+    private final double[] weights = {0.5, 0.15, 0.35};
+    private RiskModel risk;
+    private ReturnsMatrix returns;
+    private ForkJoinPool pool;
+    private MonteCarloEngine.Options options;
+
+    @Setup
+    public void setUp() {
+        risk = new DenseRiskModel(new double[][]{
+                {1.0e-4, 6.0e-5, 1.0e-6},
+                {6.0e-5, 1.2e-4, 2.0e-6},
+                {1.0e-6, 2.0e-6, 1.0e-5}});
+
+        SplittableRandom rnd = new SplittableRandom(5);
+        double[] data = new double[mu.length * PERIODS];
+        for (int i = 0; i < data.length; i++) data[i] = rnd.nextGaussian() * 0.01;
+        int[] days = new int[PERIODS];
+        for (int t = 0; t < PERIODS; t++) days[t] = t;
+        returns = new ReturnsMatrix(mu.length, PERIODS, days, data);
+
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        options = new MonteCarloEngine.Options();
+        options.method = method;
+        options.paths = PATHS;
+        options.horizonDays = 252;
+        options.pool = pool;
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PATHS)
+    public MonteCarloEngine.Result simulate() {
+        return MonteCarloEngine.simulate(mu, risk, returns, weights, options);
+    }
+}
@@ -0,0 +1,97 @@
+package com.portfolioai.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Aligned returns for a basket of tickers, read from the memory-mapped
+ * PriceMatrix against ReturnsAligner over on-heap PriceSeries (the path
+ * MarketDataService takes without a current matrix). 20 years of history;
+ * every fifth ticker is missing one day in ten, so DROP has work to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PriceMatrixBenchmark {
+
+    private static final int UNIVERSE = 3000;
+    private static final int SESSIONS = 5040;
+    private static final int PERIODS = 756;
+
+    @Param({"3", "50", "500"})
+    int basket;
+
+    private Path dir;
+    private PriceMatrix matrix;
+    private int[] rows;
+    private List<PriceSeries> series;
+
+    @Setup
+    public void setUp() throws Exception {
+        SplittableRandom rnd = new SplittableRandom(13);
+        Map<String, PriceSeries> data = new HashMap<>();
+        List<String> tickers = new ArrayList<>();
+        for (int i = 0; i < UNIVERSE; i++) {
+            int[] days = new int[SESSIONS];
+            double[] closes = new double[SESSIONS];
+            int n = 0;
+            double close = 50;
+            for (int d = 0; d < SESSIONS; d++) {
+                close *= 1 + rnd.nextGaussian() * 0.01;
+                if (i % 5 == 0 && d % 10 == 3) continue;
+                days[n] = 10_000 + d;
+                closes[n++] = close;
+            }
+            String t = "T" + i;
+            tickers.add(t);
+            data.put(t, PriceSeries.of(Arrays.copyOf(days, n), Arrays.copyOf(closes, n)));
+        }
+
+        dir = Files.createTempDirectory("price-matrix-bench");
+        Path file = dir.resolve("prices.mat");
+        PriceMatrix.write(file, tickers, data::get, 10_000 + SESSIONS - 1);
+        matrix = PriceMatrix.open(file);
+
+        rows = new int[basket];
+        series = new ArrayList<>(basket);
+        for (int k = 0; k < basket; k++) {
+            String t = "T" + (k * (UNIVERSE / basket));
+            rows[k] = matrix.indexOf(t);
+            series.add(data.get(t));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        matrix = null;
+        Files.deleteIfExists(dir.resolve("prices.mat"));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public ReturnsMatrix mapped() {
+        return matrix.returns(rows, ReturnsAligner.MissingDataPolicy.DROP, PERIODS);
+    }
+
+    @Benchmark
+    public ReturnsMatrix heap() {
+        return ReturnsAligner.align(series, ReturnsAligner.MissingDataPolicy.DROP, PERIODS);
+    }
+}
@@ -0,0 +1,126 @@
+package com.portfolioai.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.portfolioai.model.HorizonMetrics;
+import com.portfolioai.model.StockMetrics;
+
+/**
+ * Full rescore of the universe (normalize, blend, pick the top 6): columnar
+ * MetricsTable + ScoringPipeline + TopKSelector against the object-list path
+ * it replaced (stream min/max per metric, score written into each
+ * StockMetrics, full sort). The pipeline is rebuilt per call so its
+ * per-snapshot cache does not hide the work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScoringBenchmark {
+
+    private static final int PICKS = 6;
+    private static final Map<String, Map<ScoringPipeline.Factor, Double>> BALANCED = Map.of("balanced", Map.of(
+            ScoringPipeline.Factor.RETURN, 0.5, ScoringPipeline.Factor.STABILITY, 0.5));
+
+    @Param({"500", "5000"})
+    int stocks;
+
+    private List<StockMetrics> metrics;
+    private Set<String> allowed;
+    private MetricsSnapshot snapshot;
+    private boolean[] eligible;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(11);
+        metrics = new ArrayList<>(stocks);
+        allowed = new HashSet<>();
+        for (int i = 0; i < stocks; i++) {
+            StockMetrics m = new StockMetrics();
+            m.ticker = "T" + i;
+            m.totalReturn = rnd.nextDouble(-0.5, 3);
+            m.volatility = rnd.nextDouble(0.005, 0.04);
+            m.maxDrawdown = -rnd.nextDouble(0.05, 0.8);
+            m.stabilityScore = 1.0 / (m.volatility + Math.abs(m.maxDrawdown) + 0.01);
+
+            HorizonMetrics h = new HorizonMetrics();
+            h.days = 756;
+            h.complete = true;
+            h.totalReturn = m.totalReturn / 2;
+            h.volatility = m.volatility;
+            h.maxDrawdown = m.maxDrawdown;
+            h.stabilityScore = m.stabilityScore;
+            m.horizons = Map.of("3y", h);
+
+            metrics.add(m);
+            allowed.add(m.ticker);
+        }
+        snapshot = new MetricsSnapshot(1, Instant.EPOCH, metrics);
+        eligible = new boolean[stocks];
+        Arrays.fill(eligible, true);
+    }
+
+    @Benchmark
+    public int[] columnar() {
+        ScoringPipeline pipeline = new ScoringPipeline(NormalizationUtil.Method.MIN_MAX, "3y", BALANCED);
+        double[] scores = pipeline.scores(snapshot, "balanced");
+        return TopKSelector.select(scores, eligible, PICKS);
+    }
+
+    @Benchmark
+    public List<String> objectList() {
+        normalizeReturns(metrics);
+        normalizeStability(metrics);
+        for (StockMetrics m : metrics) m.finalScore = 0.5 * m.totalReturn + 0.5 * m.stabilityScore;
+
+        List<StockMetrics> top = metrics.stream()
+                .sorted(Comparator.comparingDouble((StockMetrics m) -> m.finalScore).reversed())
+                .collect(Collectors.toList());
+        List<String> picks = new ArrayList<>(PICKS);
+        Set<String> used = new HashSet<>();
+        for (StockMetrics m : top) {
+            String t = m.ticker == null ? "" : m.ticker.trim().toUpperCase();
+            if (t.isEmpty() || !allowed.contains(t) || !used.add(t)) continue;
+            picks.add(t);
+            if (picks.size() == PICKS) break;
+        }
+        return picks;
+    }
+
+    // ---- the object-list normalization (in place, as it was) ----
+
+    private static void normalizeReturns(List<StockMetrics> metrics) {
+        double min = metrics.stream().mapToDouble(m -> m.totalReturn).min().orElse(0);
+        double max = metrics.stream().mapToDouble(m -> m.totalReturn).max().orElse(1);
+        for (StockMetrics m : metrics) m.totalReturn = normalize(m.totalReturn, min, max);
+    }
+
+    private static void normalizeStability(List<StockMetrics> metrics) {
+        double min = metrics.stream().mapToDouble(m -> m.stabilityScore).min().orElse(0);
+        double max = metrics.stream().mapToDouble(m -> m.stabilityScore).max().orElse(1);
+        for (StockMetrics m : metrics) m.stabilityScore = normalize(m.stabilityScore, min, max);
+    }
+
+    private static double normalize(double v, double min, double max) {
+        if (max - min == 0) return 0.5;
+        return (v - min) / (max - min);
+    }
+}
@@ -0,0 +1,89 @@
+package com.portfolioai.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * StooqCsvParser against the two parsers it replaced: String.split over the
+ * whole body (MarketDataFreeService) and commons-csv records looked up by
+ * header name (MarketDataService). Input is a synthetic daily CSV.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StooqCsvBenchmark {
+
+    @Param({"1260", "5040"}) // 5 and 20 years of sessions
+    int rows;
+
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(1);
+        StringBuilder sb = new StringBuilder("Date,Open,High,Low,Close,Volume\n");
+        LocalDate d = LocalDate.of(2000, 1, 3);
+        double close = 100;
+        for (int i = 0; i < rows; i++, d = d.plusDays(1)) {
+            close *= 1 + rnd.nextGaussian() * 0.01;
+            sb.append(d).append(',')
+                    .append(String.format(Locale.ROOT, "%.4f,%.4f,%.4f,%.4f", close, close * 1.01, close * 0.99, close))
+                    .append(',').append(rnd.nextInt(1_000_000, 50_000_000)).append('\n');
+        }
+        csv = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public PriceBars streaming() throws Exception {
+        return StooqCsvParser.parse(new ByteArrayInputStream(csv));
+    }
+
+    @Benchmark
+    public List<Double> stringSplit() {
+        String body = new String(csv, StandardCharsets.UTF_8);
+        String[] lines = body.split("\\R");
+        List<Double> closes = new ArrayList<>(lines.length - 1);
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty()) continue;
+            String[] cols = line.split(",");
+            if (cols.length < 5) continue;
+            String closeStr = cols[4].trim();
+            if (closeStr.isEmpty() || closeStr.equalsIgnoreCase("null")) continue;
+            double close = Double.parseDouble(closeStr);
+            if (close > 0) closes.add(close);
+        }
+        return closes;
+    }
+
+    @Benchmark
+    public List<Double> commonsCsv() throws Exception {
+        List<Double> closes = new ArrayList<>();
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8)) {
+            Iterable<CSVRecord> records = CSVFormat.DEFAULT.builder()
+                    .setHeader().setSkipHeaderRecord(true).build()
+                    .parse(reader);
+            for (CSVRecord r : records) closes.add(Double.parseDouble(r.get("Close")));
+        }
+        return closes;
+    }
+}
@@ -0,0 +1,122 @@
+package com.portfolioai.service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.ClassPathResource;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Universe startup and lookups on the bundled universe: reading the prebuilt
+ * universe.idx against parsing sp500.csv / custom_sectors.json, and
+ * UniverseIndex.contains against the trim + upper-case + HashSet lookup
+ * isAllowed used before. Lookup scores are per batch of every ticker, in
+ * mixed case with padding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UniverseBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private byte[] sp500;
+    private byte[] sectors;
+    private byte[] index;
+
+    private UniverseIndex universe;
+    private Set<String> allowed;
+    private String[] queries;
+
+    @Setup
+    public void setUp() throws Exception {
+        sp500 = read("universe/sp500.csv");
+        sectors = read("universe/custom_sectors.json");
+        universe = fromSources();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(out)) {
+            universe.write(data);
+        }
+        index = out.toByteArray();
+
+        allowed = new HashSet<>(universe.tickerSet());
+        queries = new String[universe.size()];
+        for (int i = 0; i < queries.length; i++) {
+            String t = universe.ticker(i);
+            queries[i] = i % 2 == 0 ? " " + t.toLowerCase() : t;
+        }
+    }
+
+    @Benchmark
+    public UniverseIndex loadPrebuilt() throws Exception {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(index))) {
+            return UniverseIndex.read(in);
+        }
+    }
+
+    @Benchmark
+    public UniverseIndex loadFromSources() throws Exception {
+        return fromSources();
+    }
+
+    @Benchmark
+    public int containsIndex() {
+        int hits = 0;
+        for (String q : queries) if (universe.contains(q)) hits++;
+        return hits;
+    }
+
+    @Benchmark
+    public int containsHashSet() {
+        int hits = 0;
+        for (String q : queries) if (allowed.contains(q.trim().toUpperCase())) hits++;
+        return hits;
+    }
+
+    // ---- helpers ----
+
+    private UniverseIndex fromSources() throws Exception {
+        List<String> tickers = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(sp500), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String s = line.trim();
+                if (s.isEmpty() || s.equalsIgnoreCase("ticker")) continue;
+                int comma = s.indexOf(',');
+                tickers.add(comma < 0 ? s : s.substring(0, comma));
+            }
+        }
+        Map<String, List<String>> raw = MAPPER.readValue(sectors, new TypeReference<LinkedHashMap<String, List<String>>>() {});
+        return UniverseIndex.build(tickers, raw);
+    }
+
+    private static byte[] read(String path) throws Exception {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+}
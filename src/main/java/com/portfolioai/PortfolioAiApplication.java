@@ -2,8 +2,10 @@ package com.portfolioai;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class PortfolioAiApplication {
     public static void main(String[] args) {
         SpringApplication.run(PortfolioAiApplication.class, args);
@@ -0,0 +1,65 @@
+package com.portfolioai.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Handlers that wait on market data return CompletableFutures completed on
+ * this pool, so the servlet thread goes back to Tomcat while Stooq loads are
+ * in flight. The pool's core size follows the measured blocking ratio of its
+ * tasks (RequestPoolSizer); when it and its queue are full, requests are
+ * rejected (503) rather than queued without bound.
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor requestExecutor;
+    private final RequestPoolSizer poolSizer;
+    private final long timeoutMillis;
+
+    public AsyncConfig(@Qualifier("requestExecutor") ThreadPoolTaskExecutor requestExecutor,
+                       RequestPoolSizer poolSizer,
+                       @Value("${web.async.timeout-seconds:60}") long timeoutSeconds) {
+        this.requestExecutor = requestExecutor;
+        this.poolSizer = poolSizer;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, timeoutSeconds));
+    }
+
+    @Bean
+    public static RequestPoolSizer requestPoolSizer(@Value("${web.async.min-pool-size:0}") int minSize,
+                                                    @Value("${web.async.max-pool-size:200}") int maxSize) {
+        return new RequestPoolSizer(minSize, maxSize);
+    }
+
+    @Bean(name = "requestExecutor")
+    public static ThreadPoolTaskExecutor requestExecutor(RequestPoolSizer poolSizer,
+                                                         @Value("${web.async.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSizer.minSize());
+        executor.setMaxPoolSize(poolSizer.maxSize());
+        executor.setQueueCapacity(Math.max(0, queueCapacity));
+        executor.setTaskDecorator(poolSizer);
+        executor.setThreadNamePrefix("request-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    @Scheduled(fixedDelayString = "${web.async.resize-check-ms:10000}")
+    public void resizeRequestPool() {
+        poolSizer.resize(requestExecutor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(requestExecutor);
+        configurer.setDefaultTimeout(timeoutMillis);
+    }
+}
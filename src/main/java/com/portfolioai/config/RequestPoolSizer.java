@@ -0,0 +1,82 @@
+package com.portfolioai.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Sizes the request pool from what its tasks actually do: each task's wall
+ * time and thread CPU time are recorded, and resize() sets the core size to
+ * cores * (1 + wait / compute) (Goetz), smoothed and clamped to [min, max].
+ * Handlers that mostly wait on Stooq get many threads; CPU-bound ones
+ * (solvers, simulations) get about one per core.
+ */
+public class RequestPoolSizer implements TaskDecorator {
+
+    private static final double SMOOTHING = 0.7; // weight of the previous ratio
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTimeSupported = threads.isCurrentThreadCpuTimeSupported();
+    private final int cores = Runtime.getRuntime().availableProcessors();
+
+    private final int minSize;
+    private final int maxSize;
+
+    private final LongAdder wallNanos = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private volatile double waitRatio = -1; // < 0 until the first measurement
+
+    /** @param minSize 0 = number of cores */
+    public RequestPoolSizer(int minSize, int maxSize) {
+        this.minSize = minSize > 0 ? minSize : cores;
+        this.maxSize = Math.max(this.minSize, maxSize);
+    }
+
+    public int minSize() {
+        return minSize;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /** Smoothed wait / compute time of recent tasks; -1 before any were measured. */
+    public double waitRatio() {
+        return waitRatio;
+    }
+
+    @Override
+    public Runnable decorate(Runnable task) {
+        if (!cpuTimeSupported) return task;
+        return () -> {
+            long cpu0 = threads.getCurrentThreadCpuTime();
+            long t0 = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                wallNanos.add(System.nanoTime() - t0);
+                cpuNanos.add(Math.max(0, threads.getCurrentThreadCpuTime() - cpu0));
+            }
+        };
+    }
+
+    /** Applies the measured ratio to the executor's core size; returns the size in effect. */
+    public int resize(ThreadPoolTaskExecutor executor) {
+        long wall = wallNanos.sumThenReset();
+        long cpu = cpuNanos.sumThenReset();
+        if (wall > 0) {
+            double ratio = Math.max(0, wall - cpu) / (double) Math.max(cpu, 1_000);
+            double prev = waitRatio;
+            waitRatio = prev < 0 ? ratio : SMOOTHING * prev + (1 - SMOOTHING) * ratio;
+        }
+        if (waitRatio < 0) return executor.getCorePoolSize();
+
+        long target = Math.round(cores * (1 + waitRatio));
+        int size = (int) Math.max(minSize, Math.min(maxSize, target));
+        if (size != executor.getCorePoolSize()) executor.setCorePoolSize(size);
+        return size;
+    }
+}
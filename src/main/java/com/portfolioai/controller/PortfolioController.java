@@ -1,14 +1,36 @@
 package com.portfolioai.controller;
 
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.portfolioai.model.AiStockPortfolioResponse;
+import com.portfolioai.model.BacktestRequest;
+import com.portfolioai.model.BacktestResponse;
+import com.portfolioai.model.FrontierRequest;
+import com.portfolioai.model.FrontierResponse;
 import com.portfolioai.model.PortfolioRequest;
+import com.portfolioai.model.PortfolioResponse;
+import com.portfolioai.model.SimulationRequest;
+import com.portfolioai.model.SimulationResponse;
 import com.portfolioai.service.BacktestService;
 import com.portfolioai.service.FreeAiStockPortfolioService;
+import com.portfolioai.service.MarketDataFreeService;
+import com.portfolioai.service.MonteCarloService;
+import com.portfolioai.service.PriceCache;
 import com.portfolioai.service.PortfolioService;
 
 @RestController
@@ -18,19 +40,83 @@ public class PortfolioController {
     private final PortfolioService portfolioService;
     private final BacktestService backtestService;
     private final FreeAiStockPortfolioService freeAiStockPortfolioService;
+    private final MarketDataFreeService marketDataFreeService;
+    private final MonteCarloService monteCarloService;
+
+    // Handlers below may block on Stooq; they run here instead of on Tomcat threads
+    private final TaskExecutor requestExecutor;
 
     public PortfolioController(
             PortfolioService portfolioService,
             BacktestService backtestService,
-            FreeAiStockPortfolioService freeAiStockPortfolioService
+            FreeAiStockPortfolioService freeAiStockPortfolioService,
+            MarketDataFreeService marketDataFreeService,
+            MonteCarloService monteCarloService,
+            @Qualifier("requestExecutor") TaskExecutor requestExecutor
     ) {
         this.portfolioService = portfolioService;
         this.backtestService = backtestService;
         this.freeAiStockPortfolioService = freeAiStockPortfolioService;
+        this.marketDataFreeService = marketDataFreeService;
+        this.monteCarloService = monteCarloService;
+        this.requestExecutor = requestExecutor;
+    }
+
+    @PostMapping("/portfolio")
+    public CompletableFuture<PortfolioResponse> portfolio(@RequestBody PortfolioRequest req) {
+        return async(() -> portfolioService.generate(req));
+    }
+
+    @PostMapping("/portfolio/frontier")
+    public CompletableFuture<FrontierResponse> frontier(@RequestBody FrontierRequest req) {
+        return async(() -> portfolioService.frontier(req));
+    }
+
+    @PostMapping("/backtest")
+    public CompletableFuture<BacktestResponse> backtest(@RequestBody BacktestRequest req) {
+        return async(() -> backtestService.backtest(req));
     }
 
     @PostMapping("/ai/stocks")
-    public AiStockPortfolioResponse aiStocks(@RequestBody PortfolioRequest req) throws Exception {
-        return freeAiStockPortfolioService.recommend(req.getAnswers());
+    public CompletableFuture<AiStockPortfolioResponse> aiStocks(@RequestBody PortfolioRequest req) {
+        return async(() -> freeAiStockPortfolioService.recommend(req.getAnswers()));
+    }
+
+    @PostMapping("/simulate")
+    public CompletableFuture<SimulationResponse> simulate(@RequestBody SimulationRequest req) {
+        return async(() -> monteCarloService.simulate(req));
+    }
+
+    @GetMapping("/market-data/cache-stats")
+    public PriceCache.Stats cacheStats() {
+        return marketDataFreeService.getCacheStats();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+
+    // request pool and its queue are full (TaskRejectedException), or no simulation slot is free
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> overloaded(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("error", "Server busy, retry shortly"));
+    }
+
+    // ---- helpers ----
+
+    // completes with the task's own exception (not a CompletionException) so handlers above still match
+    private <T> CompletableFuture<T> async(Callable<T> task) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        requestExecutor.execute(() -> {
+            try {
+                f.complete(task.call());
+            } catch (Throwable e) {
+                f.completeExceptionally(e);
+            }
+        });
+        return f;
     }
 }
@@ -5,6 +5,6 @@ import java.util.List;
 public class AiStockPortfolioResponse {
     public int risk_score;
     public String risk_tier; // "conservative" | "balanced" | "aggressive"
-    public List<StockPick> picks; // ALWAYS 6
+    public List<StockPick> picks; // ai.stocks.picks (default 6); fewer only if sector caps run out
     public String explanation;
 }
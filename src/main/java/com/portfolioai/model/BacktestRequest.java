@@ -0,0 +1,29 @@
+package com.portfolioai.model;
+
+import java.util.Map;
+
+public class BacktestRequest {
+
+    private Map<String, Double> weights;
+
+    // optional overrides of the backtest.* defaults
+    private String rebalance;               // "none", "periodic" or "threshold"
+    private Integer rebalanceDays;
+    private Double threshold;
+    private Double costBps;
+
+    public Map<String, Double> getWeights() { return weights; }
+    public void setWeights(Map<String, Double> weights) { this.weights = weights; }
+
+    public String getRebalance() { return rebalance; }
+    public void setRebalance(String rebalance) { this.rebalance = rebalance; }
+
+    public Integer getRebalanceDays() { return rebalanceDays; }
+    public void setRebalanceDays(Integer rebalanceDays) { this.rebalanceDays = rebalanceDays; }
+
+    public Double getThreshold() { return threshold; }
+    public void setThreshold(Double threshold) { this.threshold = threshold; }
+
+    public Double getCostBps() { return costBps; }
+    public void setCostBps(Double costBps) { this.costBps = costBps; }
+}
@@ -1,11 +1,29 @@
 package com.portfolioai.model;
 
+import java.util.List;
+
 public class BacktestResponse {
     public double portfolio_cagr;
     public double portfolio_vol;
     public double spy_cagr;
     public double spy_vol;
 
+    public double portfolio_max_drawdown;
+    public String portfolio_max_drawdown_peak;   // yyyy-MM-dd
+    public String portfolio_max_drawdown_trough; // yyyy-MM-dd
+    public double portfolio_sharpe;
+    public double portfolio_sortino;
+    public double spy_max_drawdown;
+    public double spy_sharpe;
+    public double spy_sortino;
+
+    public String rebalance;     // none | periodic | threshold
+    public int rebalances;
+    public double turnover;      // sum of one-way traded fractions
+    public double costs;         // fraction of starting capital
+
+    public List<EquityPoint> equity_curve; // downsampled
+
     public BacktestResponse(double portfolio_cagr, double portfolio_vol,
                             double spy_cagr, double spy_vol) {
         this.portfolio_cagr = portfolio_cagr;
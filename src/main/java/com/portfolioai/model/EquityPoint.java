@@ -0,0 +1,15 @@
+package com.portfolioai.model;
+
+public class EquityPoint {
+    public String date;          // yyyy-MM-dd
+    public double portfolio;     // equity, starting at 1
+    public double benchmark;     // SPY equity, starting at 1
+    public Double rolling_vol;   // portfolio, annualized; null until the window fills
+
+    public EquityPoint(String date, double portfolio, double benchmark, Double rolling_vol) {
+        this.date = date;
+        this.portfolio = portfolio;
+        this.benchmark = benchmark;
+        this.rolling_vol = rolling_vol;
+    }
+}
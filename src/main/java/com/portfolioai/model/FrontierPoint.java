@@ -0,0 +1,20 @@
+package com.portfolioai.model;
+
+import java.util.Map;
+
+public class FrontierPoint {
+    public double risk_aversion;
+    public Map<String, Double> weights;
+    public double expected_return; // annualized (252 trading days)
+    public double volatility;      // annualized
+    public int iterations;
+
+    public FrontierPoint(double risk_aversion, Map<String, Double> weights,
+                         double expected_return, double volatility, int iterations) {
+        this.risk_aversion = risk_aversion;
+        this.weights = weights;
+        this.expected_return = expected_return;
+        this.volatility = volatility;
+        this.iterations = iterations;
+    }
+}
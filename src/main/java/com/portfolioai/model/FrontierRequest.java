@@ -0,0 +1,13 @@
+package com.portfolioai.model;
+
+public class FrontierRequest {
+
+    private QuizAnswers answers;            // risk profile -> the same constraints /portfolio uses
+    private Integer points;                 // frontier points (portfolio.frontier.* defaults / cap)
+
+    public QuizAnswers getAnswers() { return answers; }
+    public void setAnswers(QuizAnswers answers) { this.answers = answers; }
+
+    public Integer getPoints() { return points; }
+    public void setPoints(Integer points) { this.points = points; }
+}
@@ -0,0 +1,15 @@
+package com.portfolioai.model;
+
+import java.util.List;
+
+public class FrontierResponse {
+    public int risk_score;
+    public String risk_tier;
+    public List<FrontierPoint> points;    // increasing volatility
+
+    public FrontierResponse(int risk_score, String risk_tier, List<FrontierPoint> points) {
+        this.risk_score = risk_score;
+        this.risk_tier = risk_tier;
+        this.points = points;
+    }
+}
@@ -0,0 +1,10 @@
+package com.portfolioai.model;
+
+public class HorizonMetrics {
+    public int days;               // trading days in the window
+    public boolean complete;       // false if the ticker has less history than the window
+    public double totalReturn;
+    public double volatility;      // std dev of daily returns
+    public double maxDrawdown;     // <= 0
+    public double stabilityScore;  // 1 / (vol + |drawdown| + 0.01), as for the lifetime metric
+}
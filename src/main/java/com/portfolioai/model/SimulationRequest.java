@@ -0,0 +1,37 @@
+package com.portfolioai.model;
+
+import java.util.Map;
+
+public class SimulationRequest {
+
+    // either explicit weights, or quiz answers to build a portfolio with PortfolioService
+    private Map<String, Double> weights;
+    private QuizAnswers answers;
+    private String optimizer;               // "mvo" or "risk_parity" (with answers)
+
+    private String method;                  // "gaussian" or "bootstrap"
+    private Integer paths;
+    private Integer horizonDays;
+    private Long seed;
+
+    public Map<String, Double> getWeights() { return weights; }
+    public void setWeights(Map<String, Double> weights) { this.weights = weights; }
+
+    public QuizAnswers getAnswers() { return answers; }
+    public void setAnswers(QuizAnswers answers) { this.answers = answers; }
+
+    public String getOptimizer() { return optimizer; }
+    public void setOptimizer(String optimizer) { this.optimizer = optimizer; }
+
+    public String getMethod() { return method; }
+    public void setMethod(String method) { this.method = method; }
+
+    public Integer getPaths() { return paths; }
+    public void setPaths(Integer paths) { this.paths = paths; }
+
+    public Integer getHorizonDays() { return horizonDays; }
+    public void setHorizonDays(Integer horizonDays) { this.horizonDays = horizonDays; }
+
+    public Long getSeed() { return seed; }
+    public void setSeed(Long seed) { this.seed = seed; }
+}
@@ -0,0 +1,20 @@
+package com.portfolioai.model;
+
+import java.util.Map;
+
+public class SimulationResponse {
+    public Map<String, Double> weights;
+    public String method;
+    public int paths;
+    public int horizon_days;
+    public long seed;
+
+    public Map<String, Double> terminal_wealth;      // "p5" .. "p95", starting from 1
+    public double mean_terminal_wealth;
+    public double probability_of_loss;
+    public Map<String, Double> max_drawdown;         // "p5" .. "p95"
+    public Map<String, Double> drawdown_probability; // ">=10%" -> P(max drawdown >= 10%)
+
+    public double elapsed_ms;
+    public double paths_per_sec;
+}
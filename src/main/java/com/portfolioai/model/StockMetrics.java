@@ -1,5 +1,7 @@
 package com.portfolioai.model;
 
+import java.util.Map;
+
 public class StockMetrics {
 
     public String ticker;
@@ -8,6 +10,16 @@ public class StockMetrics {
     public double totalReturn;     // e.g. 1.25 = +125%
     public double volatility;      // std dev of daily returns
     public double maxDrawdown;     // e.g. -0.55 = -55%
+    public double momentum;        // 12-1 month return (skips the latest month)
+
+    // trailing windows ("1y", "3y", ...), so tickers with different history lengths compare
+    public Map<String, HorizonMetrics> horizons = Map.of();
+
+    // rolling window (metrics.rolling-window days) over the longest horizon
+    public double rollingVolatility;      // latest
+    public double maxRollingVolatility;
+    public double rollingDrawdown;        // latest, from the rolling peak
+    public double worstRollingDrawdown;
 
     // derived
     public double stabilityScore;  // higher = more stable
@@ -19,6 +31,7 @@ public class StockMetrics {
                 " return=" + totalReturn +
                 " vol=" + volatility +
                 " drawdown=" + maxDrawdown +
+                " momentum=" + momentum +
                 " stability=" + stabilityScore +
                 " score=" + finalScore;
     }
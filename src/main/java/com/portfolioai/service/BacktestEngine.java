@@ -0,0 +1,236 @@
+package com.portfolioai.service;
+
+/**
+ * Backtests a fixed-target portfolio over a ReturnsMatrix in one pass over the
+ * periods: holdings drift with returns, are rebalanced back to target (never,
+ * every N periods, or when any weight drifts past a threshold) at a cost in
+ * basis points of traded value, and every statistic (CAGR, volatility,
+ * drawdown, Sharpe, Sortino, rolling volatility) is updated as it goes.
+ * The equity curve is kept at a fixed stride so its size stays bounded.
+ */
+public final class BacktestEngine {
+
+    private static final double PERIODS_PER_YEAR = 252.0;
+
+    public enum Rebalance {
+        /** Buy and hold. */
+        NONE,
+        /** Every `rebalanceDays` periods. */
+        PERIODIC,
+        /** When any weight is more than `threshold` away from target. */
+        THRESHOLD;
+
+        /** Null or blank = NONE; unknown names are rejected (400 from /backtest). */
+        public static Rebalance parse(String s) {
+            if (s == null || s.isBlank()) return NONE;
+            return switch (s.trim().toLowerCase()) {
+                case "none", "buy_and_hold" -> NONE;
+                case "periodic", "calendar" -> PERIODIC;
+                case "threshold", "band" -> THRESHOLD;
+                default -> throw new IllegalArgumentException("Unknown rebalance mode: " + s + " (none, periodic, threshold)");
+            };
+        }
+    }
+
+    public static final class Options {
+        public Rebalance rebalance = Rebalance.PERIODIC;
+        public int rebalanceDays = 21;
+        public double threshold = 0.05;
+        public double costBps = 5;
+        public int rollingWindow = 63;
+        public double riskFreeRate = 0;  // annual
+        public int maxCurvePoints = 260;
+
+        public Options copy() {
+            Options o = new Options();
+            o.rebalance = rebalance;
+            o.rebalanceDays = rebalanceDays;
+            o.threshold = threshold;
+            o.costBps = costBps;
+            o.rollingWindow = rollingWindow;
+            o.riskFreeRate = riskFreeRate;
+            o.maxCurvePoints = maxCurvePoints;
+            return o;
+        }
+
+        /** Same statistics settings, but buy and hold with no costs (for benchmarks). */
+        public Options buyAndHold() {
+            Options o = new Options();
+            o.rebalance = Rebalance.NONE;
+            o.costBps = 0;
+            o.rollingWindow = rollingWindow;
+            o.riskFreeRate = riskFreeRate;
+            o.maxCurvePoints = maxCurvePoints;
+            return o;
+        }
+    }
+
+    public static final class Result {
+        public final double cagr;
+        public final double volatility;      // annualized
+        public final double maxDrawdown;     // <= 0
+        public final int maxDrawdownPeak;    // epoch day
+        public final int maxDrawdownTrough;  // epoch day
+        public final double sharpe;
+        public final double sortino;
+        public final double finalEquity;     // starting from 1
+        public final int rebalances;
+        public final double turnover;        // sum of one-way traded fractions
+        public final double costs;           // in units of starting equity
+        public final int[] curveDays;
+        public final double[] equity;
+        public final double[] rollingVol;    // annualized; NaN until the window fills
+
+        Result(double cagr, double volatility, double maxDrawdown, int maxDrawdownPeak, int maxDrawdownTrough,
+               double sharpe, double sortino, double finalEquity, int rebalances, double turnover, double costs,
+               int[] curveDays, double[] equity, double[] rollingVol) {
+            this.cagr = cagr;
+            this.volatility = volatility;
+            this.maxDrawdown = maxDrawdown;
+            this.maxDrawdownPeak = maxDrawdownPeak;
+            this.maxDrawdownTrough = maxDrawdownTrough;
+            this.sharpe = sharpe;
+            this.sortino = sortino;
+            this.finalEquity = finalEquity;
+            this.rebalances = rebalances;
+            this.turnover = turnover;
+            this.costs = costs;
+            this.curveDays = curveDays;
+            this.equity = equity;
+            this.rollingVol = rollingVol;
+        }
+    }
+
+    private BacktestEngine() {
+    }
+
+    /**
+     * @param weights target weight per asset (row) of `returns`; normalised to sum to 1
+     */
+    public static Result run(ReturnsMatrix returns, double[] weights, Options options) {
+        int n = returns.assets(), len = returns.periods();
+        if (weights.length != n) throw new IllegalArgumentException("weights and returns must have the same size");
+        if (len == 0) throw new IllegalArgumentException("no return periods to backtest");
+
+        double[] target = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            if (!(weights[i] >= 0)) throw new IllegalArgumentException("weights must be non-negative");
+            total += weights[i];
+        }
+        if (total <= 0) throw new IllegalArgumentException("weights must not all be zero");
+        for (int i = 0; i < n; i++) target[i] = weights[i] / total;
+
+        double[] data = returns.data();
+        double[] hold = target.clone(); // value held per asset, starting equity 1
+        double equity = 1;
+        double rfDaily = Math.pow(1 + options.riskFreeRate, 1 / PERIODS_PER_YEAR) - 1;
+        double costRate = Math.max(0, options.costBps) / 1e4;
+        int period = Math.max(1, options.rebalanceDays);
+
+        // running statistics
+        double mean = 0, m2 = 0, downside = 0;
+        double peak = 1, maxDd = 0;
+        int peakDay = returns.day(0), ddPeak = peakDay, ddTrough = peakDay;
+        int rebalances = 0;
+        double turnover = 0, costs = 0;
+
+        int window = Math.max(2, options.rollingWindow);
+        double[] ring = new double[window];
+        double winSum = 0, winSumSq = 0;
+
+        int stride = Math.max(1, (len + Math.max(1, options.maxCurvePoints) - 1) / Math.max(1, options.maxCurvePoints));
+        int points = (len + stride - 1) / stride;
+        int[] curveDays = new int[points];
+        double[] curve = new double[points];
+        double[] rolling = new double[points];
+        int p = 0;
+
+        for (int t = 0; t < len; t++) {
+            double before = equity;
+
+            equity = 0;
+            for (int i = 0; i < n; i++) {
+                hold[i] *= 1 + data[i * len + t];
+                equity += hold[i];
+            }
+
+            // rebalance at this period's close (not after the last one)
+            if (t < len - 1 && equity > 0 && rebalanceDue(options, t, period, hold, target, equity)) {
+                double traded = 0;
+                for (int i = 0; i < n; i++) traded += Math.abs(target[i] * equity - hold[i]);
+                double cost = traded * costRate;
+                turnover += traded / (2 * equity);
+                costs += cost;
+                equity -= cost;
+                for (int i = 0; i < n; i++) hold[i] = target[i] * equity;
+                rebalances++;
+            }
+
+            double r = before > 0 ? equity / before - 1 : 0;
+
+            // Welford mean / variance
+            double delta = r - mean;
+            mean += delta / (t + 1);
+            m2 += delta * (r - mean);
+
+            double excess = r - rfDaily;
+            if (excess < 0) downside += excess * excess;
+
+            if (equity > peak) {
+                peak = equity;
+                peakDay = returns.day(t);
+            }
+            double dd = equity / peak - 1;
+            if (dd < maxDd) {
+                maxDd = dd;
+                ddPeak = peakDay;
+                ddTrough = returns.day(t);
+            }
+
+            int slot = t % window;
+            winSum += r - ring[slot];
+            winSumSq += r * r - ring[slot] * ring[slot];
+            ring[slot] = r;
+
+            if (t % stride == stride - 1 || t == len - 1) {
+                curveDays[p] = returns.day(t);
+                curve[p] = equity;
+                rolling[p] = t + 1 >= window
+                        ? Math.sqrt(Math.max(0, (winSumSq - winSum * winSum / window) / (window - 1)) * PERIODS_PER_YEAR)
+                        : Double.NaN;
+                p++;
+            }
+        }
+
+        double years = len / PERIODS_PER_YEAR;
+        double cagr = equity > 0 ? Math.pow(equity, 1 / years) - 1 : -1;
+        double sd = len > 1 ? Math.sqrt(m2 / (len - 1)) : 0;
+        double downDev = Math.sqrt(downside / len);
+        double annual = Math.sqrt(PERIODS_PER_YEAR);
+
+        return new Result(
+                cagr,
+                sd * annual,
+                maxDd, ddPeak, ddTrough,
+                sd > 0 ? (mean - rfDaily) / sd * annual : 0,
+                downDev > 0 ? (mean - rfDaily) / downDev * annual : 0,
+                equity, rebalances, turnover, costs,
+                curveDays, curve, rolling
+        );
+    }
+
+    private static boolean rebalanceDue(Options options, int t, int period,
+                                        double[] hold, double[] target, double equity) {
+        return switch (options.rebalance) {
+            case NONE -> false;
+            case PERIODIC -> (t + 1) % period == 0;
+            case THRESHOLD -> {
+                for (int i = 0; i < hold.length; i++) {
+                    if (Math.abs(hold[i] / equity - target[i]) > options.threshold) yield true;
+                }
+                yield false;
+            }
+        };
+    }
+}
@@ -1,63 +1,119 @@
 package com.portfolioai.service;
 
+import com.portfolioai.model.BacktestRequest;
 import com.portfolioai.model.BacktestResponse;
+import com.portfolioai.model.EquityPoint;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 @Service
 public class BacktestService {
 
-    private final MarketDataService marketDataService;
+    private static final String BENCHMARK = "SPY";
+    private static final int YEARS_BACK = 3;
 
-    public BacktestService(MarketDataService marketDataService) {
+    private final MarketDataService marketDataService;
+    private final BacktestEngine.Options defaults;
+
+    public BacktestService(MarketDataService marketDataService,
+                           @Value("${backtest.rebalance:periodic}") String rebalance,
+                           @Value("${backtest.rebalance-days:21}") int rebalanceDays,
+                           @Value("${backtest.rebalance-threshold:0.05}") double threshold,
+                           @Value("${backtest.cost-bps:5}") double costBps,
+                           @Value("${backtest.rolling-window:63}") int rollingWindow,
+                           @Value("${backtest.risk-free-rate:0}") double riskFreeRate,
+                           @Value("${backtest.max-curve-points:260}") int maxCurvePoints) {
         this.marketDataService = marketDataService;
+        this.defaults = new BacktestEngine.Options();
+        defaults.rebalance = BacktestEngine.Rebalance.parse(rebalance);
+        defaults.rebalanceDays = rebalanceDays;
+        defaults.threshold = threshold;
+        defaults.costBps = costBps;
+        defaults.rollingWindow = rollingWindow;
+        defaults.riskFreeRate = riskFreeRate;
+        defaults.maxCurvePoints = maxCurvePoints;
     }
 
     public BacktestResponse backtest(Map<String, Double> weights) throws Exception {
-
-        List<String> portfolioAssets = List.of("VOO", "VXUS", "BND");
-        var stats = marketDataService.loadReturns(portfolioAssets, 3);
-
-        // portfolio daily returns
-        double[] portRets = new double[stats.alignedReturns.get(0).length];
-        for (int t = 0; t < portRets.length; t++) {
-            double r = 0;
-            for (int i = 0; i < portfolioAssets.size(); i++) {
-                r += weights.get(portfolioAssets.get(i)) * stats.alignedReturns.get(i)[t];
-            }
-            portRets[t] = r;
-        }
-
-        // SPY stats for comparison
-        var spyStats = marketDataService.loadReturns(List.of("SPY"), 3);
-        double[] spyRets = spyStats.alignedReturns.get(0);
-
-        return new BacktestResponse(
-                cagr(portRets), vol(portRets),
-                cagr(spyRets), vol(spyRets)
-        );
+        return backtest(weights, defaults);
     }
 
-    private double cagr(double[] dailyRets) {
-        double growth = 1.0;
-        for (double r : dailyRets) growth *= (1 + r);
-
-        double years = dailyRets.length / 252.0;
-        return Math.pow(growth, 1.0 / years) - 1.0;
+    /** Backtest with the request's rebalancing / cost overrides on top of the defaults. */
+    public BacktestResponse backtest(BacktestRequest req) throws Exception {
+        BacktestEngine.Options options = defaults.copy();
+        if (req.getRebalance() != null) options.rebalance = BacktestEngine.Rebalance.parse(req.getRebalance());
+        if (req.getRebalanceDays() != null) options.rebalanceDays = req.getRebalanceDays();
+        if (req.getThreshold() != null) options.threshold = req.getThreshold();
+        if (req.getCostBps() != null) options.costBps = req.getCostBps();
+        return backtest(req.getWeights(), options);
     }
 
-    private double vol(double[] dailyRets) {
-        double mean = 0;
-        for (double r : dailyRets) mean += r;
-        mean /= dailyRets.length;
-
-        double var = 0;
-        for (double r : dailyRets) var += (r - mean) * (r - mean);
-        var /= (dailyRets.length - 1);
-
-        return Math.sqrt(var) * Math.sqrt(252.0);
+    /**
+     * Backtests `weights` (any assets; missing or null entries count as 0) over
+     * the last three years against buy-and-hold SPY on the same dates.
+     */
+    public BacktestResponse backtest(Map<String, Double> weights, BacktestEngine.Options options) throws Exception {
+        if (weights == null) throw new IllegalArgumentException("weights are required");
+
+        List<String> assets = new ArrayList<>();
+        List<Double> targets = new ArrayList<>();
+        for (Map.Entry<String, Double> e : weights.entrySet()) {
+            Double w = e.getValue();
+            if (e.getKey() == null || w == null || w == 0) continue;
+            if (!(w > 0)) throw new IllegalArgumentException("Negative weight for " + e.getKey());
+            assets.add(e.getKey().trim().toUpperCase());
+            targets.add(w);
+        }
+        if (assets.isEmpty()) throw new IllegalArgumentException("weights must contain at least one positive entry");
+
+        // one aligned matrix for portfolio and benchmark, so both cover the same dates
+        List<String> all = new ArrayList<>(assets);
+        int spy = all.indexOf(BENCHMARK);
+        if (spy < 0) {
+            all.add(BENCHMARK);
+            spy = all.size() - 1;
+        }
+        ReturnsMatrix returns = marketDataService.loadReturns(all, YEARS_BACK).returns;
+
+        double[] w = new double[all.size()];
+        for (int i = 0; i < targets.size(); i++) w[i] += targets.get(i);
+        double[] bench = new double[all.size()];
+        bench[spy] = 1;
+
+        BacktestEngine.Result port = BacktestEngine.run(returns, w, options);
+        BacktestEngine.Result spyRes = BacktestEngine.run(returns, bench, options.buyAndHold());
+
+        BacktestResponse out = new BacktestResponse(port.cagr, port.volatility, spyRes.cagr, spyRes.volatility);
+        out.portfolio_max_drawdown = port.maxDrawdown;
+        out.portfolio_max_drawdown_peak = LocalDate.ofEpochDay(port.maxDrawdownPeak).toString();
+        out.portfolio_max_drawdown_trough = LocalDate.ofEpochDay(port.maxDrawdownTrough).toString();
+        out.portfolio_sharpe = port.sharpe;
+        out.portfolio_sortino = port.sortino;
+        out.spy_max_drawdown = spyRes.maxDrawdown;
+        out.spy_sharpe = spyRes.sharpe;
+        out.spy_sortino = spyRes.sortino;
+        out.rebalance = options.rebalance.name().toLowerCase();
+        out.rebalances = port.rebalances;
+        out.turnover = port.turnover;
+        out.costs = port.costs;
+
+        // same dates and stride for both runs, so the curves line up point by point
+        List<EquityPoint> curve = new ArrayList<>(port.equity.length);
+        for (int k = 0; k < port.equity.length; k++) {
+            double vol = port.rollingVol[k];
+            curve.add(new EquityPoint(
+                    LocalDate.ofEpochDay(port.curveDays[k]).toString(),
+                    port.equity[k],
+                    spyRes.equity[k],
+                    Double.isNaN(vol) ? null : vol
+            ));
+        }
+        out.equity_curve = curve;
+        return out;
     }
 }
-
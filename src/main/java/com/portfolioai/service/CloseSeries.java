@@ -0,0 +1,56 @@
+package com.portfolioai.service;
+
+/**
+ * Read-only chronological daily closes (oldest -> newest), with positive
+ * closes and strictly increasing epoch days. Implemented by the heap-backed
+ * PriceSeries and by memory-mapped PriceMatrix rows, so metrics code can run
+ * on either without copying.
+ */
+public interface CloseSeries {
+
+    int size();
+
+    double close(int i);
+
+    int day(int i);
+
+    default boolean isEmpty() { return size() == 0; }
+
+    default double firstClose() { return close(0); }
+
+    default double lastClose() { return close(size() - 1); }
+
+    /** Last epoch day, or Integer.MIN_VALUE when empty. */
+    default int lastDay() { return isEmpty() ? Integer.MIN_VALUE : day(size() - 1); }
+
+    /** View of the last n points (or everything if shorter), without copying. */
+    default CloseSeries tail(int n) {
+        int from = size() - Math.max(n, 0);
+        if (from <= 0) return this;
+        CloseSeries base = this;
+        int size = size() - from;
+        return new CloseSeries() {
+            @Override
+            public int size() { return size; }
+
+            @Override
+            public double close(int i) { return base.close(from + i); }
+
+            @Override
+            public int day(int i) { return base.day(from + i); }
+        };
+    }
+
+    /** Index of the bar on `day` (binary search), or -1. */
+    default int indexOfDay(int day) {
+        int lo = 0, hi = size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int d = day(mid);
+            if (d < day) lo = mid + 1;
+            else if (d > day) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,281 @@
+package com.portfolioai.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Linear constraints for a long-only, fully invested portfolio, resolved to arrays:
+ *   lo[i] <= w[i] <= hi[i],  sum(w) = 1,
+ *   groupMin[g] <= sum(w[i] for i with groupOf[i] == g) <= groupMax[g]
+ *
+ * Groups must be disjoint; assets with groupOf[i] == -1 belong to no group.
+ * project() computes the exact Euclidean projection onto this set.
+ * Instances hold scratch space and are not thread-safe.
+ */
+public final class ConstraintModel {
+
+    private static final int BISECTION_STEPS = 100;
+
+    private final int n;
+    private final double[] lo;
+    private final double[] hi;
+    private final int[] groupOf;
+    private final double[] groupMin;
+    private final double[] groupMax;
+
+    // members of group g: members[groupStart[g] .. groupStart[g + 1])
+    private final int[] groupStart;
+    private final int[] members;
+
+    // scratch, sized once
+    private final double[] shifted; // v - lambda, kept apart from out so v and out may alias
+    private final double[] groupSum;
+    private final double[] groupLoSum;
+    private final double[] groupHiSum;
+
+    public ConstraintModel(double[] lo, double[] hi, int[] groupOf, double[] groupMin, double[] groupMax) {
+        this.n = lo.length;
+        if (hi.length != n || groupOf.length != n || groupMin.length != groupMax.length) {
+            throw new IllegalArgumentException("constraint arrays differ in length");
+        }
+        this.lo = lo.clone();
+        this.hi = hi.clone();
+        this.groupOf = groupOf.clone();
+        this.groupMin = groupMin.clone();
+        this.groupMax = groupMax.clone();
+
+        int groups = groupMin.length;
+        this.shifted = new double[n];
+        this.groupSum = new double[groups];
+        this.groupLoSum = new double[groups];
+        this.groupHiSum = new double[groups];
+
+        double minTotal = 0, maxTotal = 0;
+        for (int i = 0; i < n; i++) {
+            if (lo[i] > hi[i]) throw new IllegalArgumentException("asset " + i + ": lower bound above upper bound");
+            int g = groupOf[i];
+            if (g < -1 || g >= groups) throw new IllegalArgumentException("asset " + i + ": bad group " + g);
+            if (g >= 0) {
+                groupLoSum[g] += lo[i];
+                groupHiSum[g] += hi[i];
+            } else {
+                minTotal += lo[i];
+                maxTotal += hi[i];
+            }
+        }
+        for (int g = 0; g < groups; g++) {
+            double gl = Math.max(groupMin[g], groupLoSum[g]);
+            double gh = Math.min(groupMax[g], groupHiSum[g]);
+            if (gl > gh + 1e-12) throw new IllegalArgumentException("group " + g + " bounds are infeasible");
+            minTotal += gl;
+            maxTotal += gh;
+        }
+        if (minTotal > 1 + 1e-12 || maxTotal < 1 - 1e-12) {
+            throw new IllegalArgumentException("constraints cannot sum to 1 (range " + minTotal + ".." + maxTotal + ")");
+        }
+
+        this.groupStart = new int[groups + 1];
+        for (int i = 0; i < n; i++) if (groupOf[i] >= 0) groupStart[groupOf[i] + 1]++;
+        for (int g = 0; g < groups; g++) groupStart[g + 1] += groupStart[g];
+        this.members = new int[groupStart[groups]];
+        int[] fill = Arrays.copyOf(groupStart, groups);
+        for (int i = 0; i < n; i++) if (groupOf[i] >= 0) members[fill[groupOf[i]]++] = i;
+    }
+
+    // shares the (read-only) limits, fresh scratch
+    private ConstraintModel(ConstraintModel other) {
+        this.n = other.n;
+        this.lo = other.lo;
+        this.hi = other.hi;
+        this.groupOf = other.groupOf;
+        this.groupMin = other.groupMin;
+        this.groupMax = other.groupMax;
+        this.groupStart = other.groupStart;
+        this.members = other.members;
+        this.groupLoSum = other.groupLoSum;
+        this.groupHiSum = other.groupHiSum;
+        this.shifted = new double[n];
+        this.groupSum = new double[other.groupSum.length];
+    }
+
+    /** Same constraints with separate scratch space, for use on another thread. */
+    public ConstraintModel copy() {
+        return new ConstraintModel(this);
+    }
+
+    /**
+     * Resolves named limits against an asset list, once.
+     *
+     * @param groups disjoint named asset groups, e.g. "eq" -> [VOO, VXUS]
+     * @param limits "&lt;group&gt;_min" / "&lt;group&gt;_max" bound a group's total weight,
+     *               "&lt;TICKER&gt;_min" / "&lt;TICKER&gt;_max" bound one asset and
+     *               "asset_min" / "asset_max" bound every asset; other keys are ignored
+     */
+    public static ConstraintModel compile(List<String> assets,
+                                          Map<String, List<String>> groups,
+                                          Map<String, Double> limits) {
+        int n = assets.size();
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) index.put(assets.get(i), i);
+
+        double[] lo = new double[n];
+        double[] hi = new double[n];
+        Arrays.fill(lo, limits.getOrDefault("asset_min", 0.0));
+        Arrays.fill(hi, limits.getOrDefault("asset_max", 1.0));
+        for (int i = 0; i < n; i++) {
+            String a = assets.get(i);
+            lo[i] = limits.getOrDefault(a + "_min", lo[i]);
+            hi[i] = limits.getOrDefault(a + "_max", hi[i]);
+        }
+
+        int[] groupOf = new int[n];
+        Arrays.fill(groupOf, -1);
+        List<String> names = new ArrayList<>(groups.keySet());
+        double[] gMin = new double[names.size()];
+        double[] gMax = new double[names.size()];
+
+        for (int g = 0; g < names.size(); g++) {
+            String name = names.get(g);
+            gMin[g] = limits.getOrDefault(name + "_min", 0.0);
+            gMax[g] = limits.getOrDefault(name + "_max", 1.0);
+            for (String a : groups.get(name)) {
+                Integer i = index.get(a);
+                if (i == null) continue; // group member not in this asset list
+                if (groupOf[i] >= 0) {
+                    throw new IllegalArgumentException(a + " is in groups " + names.get(groupOf[i]) + " and " + name);
+                }
+                groupOf[i] = g;
+            }
+        }
+        return new ConstraintModel(lo, hi, groupOf, gMin, gMax);
+    }
+
+    /** Only sum(w) = 1 and 0 <= w <= 1. */
+    public static ConstraintModel longOnly(int n) {
+        double[] hi = new double[n];
+        Arrays.fill(hi, 1.0);
+        int[] none = new int[n];
+        Arrays.fill(none, -1);
+        return new ConstraintModel(new double[n], hi, none, new double[0], new double[0]);
+    }
+
+    public int size() {
+        return n;
+    }
+
+    /** A feasible starting point (projection of equal weights). */
+    public double[] feasibleStart() {
+        double[] w = new double[n];
+        Arrays.fill(w, 1.0 / n);
+        project(w, w);
+        return w;
+    }
+
+    /**
+     * out = argmin ||out - v|| over the feasible set. v and out may be the same array.
+     * Allocation-free.
+     */
+    public void project(double[] v, double[] out) {
+        // outer multiplier for sum(w) = 1: total(lambda) is non-increasing in lambda
+        double a = Double.POSITIVE_INFINITY, b = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            a = Math.min(a, v[i] - hi[i]);
+            b = Math.max(b, v[i] - lo[i]);
+        }
+        a -= 1;
+        b += 1;
+
+        for (int k = 0; k < BISECTION_STEPS && b - a > 1e-15; k++) {
+            double mid = 0.5 * (a + b);
+            if (total(v, mid) > 1) a = mid;
+            else b = mid;
+        }
+        double lambda = 0.5 * (a + b);
+
+        // read v once, before out (possibly the same array) is written
+        for (int i = 0; i < n; i++) shifted[i] = v[i] - lambda;
+
+        // per group: clamp its sum into [groupMin, groupMax] with its own shift
+        Arrays.fill(groupSum, 0);
+        for (int i = 0; i < n; i++) {
+            double w = clip(shifted[i], i);
+            out[i] = w;
+            if (groupOf[i] >= 0) groupSum[groupOf[i]] += w;
+        }
+        for (int g = 0; g < groupSum.length; g++) {
+            double target = clampGroup(g, groupSum[g]);
+            if (Math.abs(target - groupSum[g]) > 1e-15) shiftGroup(out, g, target);
+        }
+    }
+
+    /** Largest violation of any constraint (0 when feasible). */
+    public double violation(double[] w) {
+        double worst = 0, sum = 0;
+        Arrays.fill(groupSum, 0);
+        for (int i = 0; i < n; i++) {
+            worst = Math.max(worst, Math.max(lo[i] - w[i], w[i] - hi[i]));
+            sum += w[i];
+            if (groupOf[i] >= 0) groupSum[groupOf[i]] += w[i];
+        }
+        worst = Math.max(worst, Math.abs(sum - 1));
+        for (int g = 0; g < groupSum.length; g++) {
+            worst = Math.max(worst, Math.max(groupMin[g] - groupSum[g], groupSum[g] - groupMax[g]));
+        }
+        return Math.max(0, worst);
+    }
+
+    private double total(double[] v, double lambda) {
+        Arrays.fill(groupSum, 0);
+        double s = 0;
+        for (int i = 0; i < n; i++) {
+            double w = clip(v[i] - lambda, i);
+            int g = groupOf[i];
+            if (g >= 0) groupSum[g] += w;
+            else s += w;
+        }
+        for (int g = 0; g < groupSum.length; g++) s += clampGroup(g, groupSum[g]);
+        return s;
+    }
+
+    // finds mu so that sum(clip(shifted - mu)) over group g hits target
+    private void shiftGroup(double[] out, int g, double target) {
+        int from = groupStart[g], to = groupStart[g + 1];
+        double a = Double.POSITIVE_INFINITY, b = Double.NEGATIVE_INFINITY;
+        for (int k = from; k < to; k++) {
+            int i = members[k];
+            a = Math.min(a, shifted[i] - hi[i]);
+            b = Math.max(b, shifted[i] - lo[i]);
+        }
+        a -= 1;
+        b += 1;
+
+        for (int step = 0; step < BISECTION_STEPS && b - a > 1e-15; step++) {
+            double mid = 0.5 * (a + b);
+            double s = 0;
+            for (int k = from; k < to; k++) {
+                int i = members[k];
+                s += clip(shifted[i] - mid, i);
+            }
+            if (s > target) a = mid;
+            else b = mid;
+        }
+        double mu = 0.5 * (a + b);
+        for (int k = from; k < to; k++) {
+            int i = members[k];
+            out[i] = clip(shifted[i] - mu, i);
+        }
+    }
+
+    private double clampGroup(int g, double s) {
+        double gl = Math.max(groupMin[g], groupLoSum[g]);
+        double gh = Math.min(groupMax[g], groupHiSum[g]);
+        return Math.max(gl, Math.min(gh, s));
+    }
+
+    private double clip(double x, int i) {
+        return Math.max(lo[i], Math.min(hi[i], x));
+    }
+}
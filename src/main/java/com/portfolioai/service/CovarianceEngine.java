@@ -0,0 +1,111 @@
+package com.portfolioai.service;
+
+import java.util.stream.IntStream;
+
+/**
+ * Sample covariance over a ReturnsMatrix.
+ *
+ * Rows are centred once, then only the upper triangle is computed, in tiles of
+ * BLOCK assets x TILE periods so the rows being combined stay in cache. Tile pairs
+ * are independent and run in parallel for larger universes; the lower triangle
+ * is mirrored at the end.
+ */
+public final class CovarianceEngine {
+
+    private static final int BLOCK = 32;           // assets per tile
+    private static final int TILE = 256;           // periods per tile
+    private static final int PARALLEL_MIN_ASSETS = 64;
+
+    private CovarianceEngine() {
+    }
+
+    /** Mean return per asset. */
+    public static double[] means(ReturnsMatrix r) {
+        int n = r.assets(), len = r.periods();
+        double[] data = r.data();
+        double[] mu = new double[n];
+        if (len == 0) return mu;
+        for (int i = 0; i < n; i++) {
+            int off = r.offset(i);
+            double sum = 0;
+            for (int t = 0; t < len; t++) sum += data[off + t];
+            mu[i] = sum / len;
+        }
+        return mu;
+    }
+
+    /** Sample covariance (divides by periods - 1). */
+    public static double[][] covariance(ReturnsMatrix r) {
+        return covariance(r, means(r));
+    }
+
+    public static double[][] covariance(ReturnsMatrix r, double[] mu) {
+        int n = r.assets(), len = r.periods();
+        if (n == 0 || len < 2) return new double[n][n];
+        return crossProduct(centred(r, mu), n, len, 1.0 / (len - 1));
+    }
+
+    /** Contiguous asset-major copy of the returns with each row's mean removed. */
+    public static double[] centred(ReturnsMatrix r, double[] mu) {
+        int n = r.assets(), len = r.periods();
+        double[] src = r.data();
+        double[] x = new double[n * len];
+        for (int i = 0; i < n; i++) {
+            int off = i * len;
+            double m = mu[i];
+            for (int t = 0; t < len; t++) x[off + t] = src[off + t] - m;
+        }
+        return x;
+    }
+
+    /**
+     * scale * X X' for an asset-major n x len matrix X (rows already centred /
+     * weighted as needed). Symmetric; only the upper triangle is computed.
+     */
+    public static double[][] crossProduct(double[] x, int n, int len, double scale) {
+        double[][] cov = new double[n][n];
+        if (n == 0) return cov;
+
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        int pairs = blocks * (blocks + 1) / 2;
+        IntStream tasks = IntStream.range(0, pairs);
+        if (n >= PARALLEL_MIN_ASSETS) tasks = tasks.parallel();
+
+        // each (bi, bj) pair writes a disjoint set of cells, so no locking is needed
+        tasks.forEach(p -> {
+            int bi = 0, rem = p;
+            while (rem >= blocks - bi) {
+                rem -= blocks - bi;
+                bi++;
+            }
+            int bj = bi + rem;
+            tile(x, len, cov, bi * BLOCK, Math.min(n, (bi + 1) * BLOCK), bj * BLOCK, Math.min(n, (bj + 1) * BLOCK));
+        });
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                double v = cov[i][j] * scale;
+                cov[i][j] = v;
+                cov[j][i] = v;
+            }
+        }
+        return cov;
+    }
+
+    // accumulates x_i . x_j for i in [i0, i1), j in [max(i, j0), j1)
+    private static void tile(double[] x, int len, double[][] cov, int i0, int i1, int j0, int j1) {
+        for (int t0 = 0; t0 < len; t0 += TILE) {
+            int t1 = Math.min(len, t0 + TILE);
+            for (int i = i0; i < i1; i++) {
+                int oi = i * len;
+                double[] row = cov[i];
+                for (int j = Math.max(i, j0); j < j1; j++) {
+                    int oj = j * len;
+                    double s = 0;
+                    for (int t = t0; t < t1; t++) s += x[oi + t] * x[oj + t];
+                    row[j] += s;
+                }
+            }
+        }
+    }
+}
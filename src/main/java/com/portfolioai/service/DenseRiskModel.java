@@ -0,0 +1,54 @@
+package com.portfolioai.service;
+
+/** A full covariance matrix, stored contiguously (row-major). */
+public final class DenseRiskModel implements RiskModel {
+
+    private final int n;
+    private final double[] sigma;
+    private final double eigenBound;
+
+    public DenseRiskModel(double[][] cov) {
+        this.n = cov.length;
+        this.sigma = new double[n * n];
+        double rows = 0, trace = 0;
+        for (int i = 0; i < n; i++) {
+            if (cov[i].length != n) throw new IllegalArgumentException("covariance must be square");
+            System.arraycopy(cov[i], 0, sigma, i * n, n);
+            double s = 0;
+            for (double v : cov[i]) s += Math.abs(v);
+            rows = Math.max(rows, s);
+            trace += cov[i][i];
+        }
+        // max absolute row sum and trace both bound λmax of a PSD matrix
+        this.eigenBound = Math.min(rows, trace);
+    }
+
+    @Override
+    public int size() { return n; }
+
+    @Override
+    public int workSize() { return 0; }
+
+    @Override
+    public void multiply(double[] x, double[] out, double[] work) {
+        for (int i = 0; i < n; i++) {
+            int off = i * n;
+            double s = 0;
+            for (int j = 0; j < n; j++) s += sigma[off + j] * x[j];
+            out[i] = s;
+        }
+    }
+
+    @Override
+    public double variance(int asset) { return sigma[asset * n + asset]; }
+
+    @Override
+    public double maxEigenvalueBound() { return eigenBound; }
+
+    @Override
+    public double[][] toDense() {
+        double[][] out = new double[n][n];
+        for (int i = 0; i < n; i++) System.arraycopy(sigma, i * n, out[i], 0, n);
+        return out;
+    }
+}
@@ -0,0 +1,115 @@
+package com.portfolioai.service;
+
+/**
+ * Σ = B F B' + D with k factors: loadings B (n x k, row-major), factor
+ * covariance F (k x k) and specific variances D (diagonal).
+ * Σx costs O(nk + k^2) and storage is O(nk) instead of O(n^2).
+ */
+public final class FactorRiskModel implements RiskModel {
+
+    private final int n;
+    private final int k;
+    private final double[] loadings;
+    private final double[] factorCov;
+    private final double[] specific;
+    private final double eigenBound;
+
+    public FactorRiskModel(int n, int k, double[] loadings, double[] factorCov, double[] specific) {
+        if (loadings.length != n * k || factorCov.length != k * k || specific.length != n) {
+            throw new IllegalArgumentException("factor model shapes do not match n=" + n + ", k=" + k);
+        }
+        this.n = n;
+        this.k = k;
+        this.loadings = loadings;
+        this.factorCov = factorCov;
+        this.specific = specific;
+
+        // nonzero eigenvalues of B F B' are those of F (B'B), bounded by its max row sum
+        double[] btb = new double[k * k];
+        for (int i = 0; i < n; i++) {
+            int off = i * k;
+            for (int a = 0; a < k; a++) {
+                for (int b = 0; b < k; b++) btb[a * k + b] += loadings[off + a] * loadings[off + b];
+            }
+        }
+        double rows = 0;
+        for (int a = 0; a < k; a++) {
+            double s = 0;
+            for (int b = 0; b < k; b++) {
+                double v = 0;
+                for (int c = 0; c < k; c++) v += factorCov[a * k + c] * btb[c * k + b];
+                s += Math.abs(v);
+            }
+            rows = Math.max(rows, s);
+        }
+        double maxSpecific = 0;
+        for (double d : specific) maxSpecific = Math.max(maxSpecific, d);
+        this.eigenBound = rows + maxSpecific;
+    }
+
+    public int factors() { return k; }
+
+    @Override
+    public int size() { return n; }
+
+    @Override
+    public int workSize() { return 2 * k; }
+
+    @Override
+    public void multiply(double[] x, double[] out, double[] work) {
+        // work[0..k) = B'x, work[k..2k) = F B'x
+        for (int a = 0; a < k; a++) work[a] = 0;
+        for (int i = 0; i < n; i++) {
+            int off = i * k;
+            double xi = x[i];
+            for (int a = 0; a < k; a++) work[a] += loadings[off + a] * xi;
+        }
+        for (int a = 0; a < k; a++) {
+            double s = 0;
+            for (int b = 0; b < k; b++) s += factorCov[a * k + b] * work[b];
+            work[k + a] = s;
+        }
+        for (int i = 0; i < n; i++) {
+            int off = i * k;
+            double s = specific[i] * x[i];
+            for (int a = 0; a < k; a++) s += loadings[off + a] * work[k + a];
+            out[i] = s;
+        }
+    }
+
+    @Override
+    public double variance(int asset) {
+        int off = asset * k;
+        double v = specific[asset];
+        for (int a = 0; a < k; a++) {
+            for (int b = 0; b < k; b++) v += loadings[off + a] * factorCov[a * k + b] * loadings[off + b];
+        }
+        return v;
+    }
+
+    @Override
+    public double maxEigenvalueBound() { return eigenBound; }
+
+    @Override
+    public double[][] toDense() {
+        double[][] out = new double[n][n];
+        double[] bf = new double[k];
+        for (int i = 0; i < n; i++) {
+            int oi = i * k;
+            for (int b = 0; b < k; b++) {
+                double s = 0;
+                for (int a = 0; a < k; a++) s += loadings[oi + a] * factorCov[a * k + b];
+                bf[b] = s;
+            }
+            for (int j = i; j < n; j++) {
+                int oj = j * k;
+                double s = 0;
+                for (int b = 0; b < k; b++) s += bf[b] * loadings[oj + b];
+                if (i == j) s += specific[i];
+                out[i][j] = s;
+                out[j][i] = s;
+            }
+        }
+        return out;
+    }
+}
@@ -2,92 +2,95 @@ package com.portfolioai.service;
 
 import com.portfolioai.model.AiStockPortfolioResponse;
 import com.portfolioai.model.QuizAnswers;
-import com.portfolioai.model.StockMetrics;
 import com.portfolioai.model.StockPick;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class FreeAiStockPortfolioService {
 
-    private final MetricsService metricsService;
+    private final MetricsSnapshotService metricsSnapshotService;
     private final UniverseService universeService;
-
-    public FreeAiStockPortfolioService(MetricsService metricsService, UniverseService universeService) {
-        this.metricsService = metricsService;
+    private final int picksPerPortfolio;
+    private final int maxPerSector;
+    private final ScoringPipeline scoring;
+
+    // Per-snapshot lookups (eligibility, tags, sector ids), rebuilt when the snapshot or the universe changes
+    private final AtomicReference<RankingIndex> rankingIndex = new AtomicReference<>();
+
+    private record RankingIndex(long version, UniverseIndex universe,
+                                boolean[] eligible, String[] tags, int[] sectors, int sectorCount) { }
+
+    public FreeAiStockPortfolioService(MetricsSnapshotService metricsSnapshotService,
+                                       UniverseService universeService,
+                                       @Value("${ai.stocks.picks:6}") int picksPerPortfolio,
+                                       @Value("${ai.stocks.max-per-sector:0}") int maxPerSector,
+                                       @Value("${ai.stocks.scoring.normalizer:min_max}") String normalizer,
+                                       @Value("${ai.stocks.scoring.horizon:3y}") String horizon,
+                                       @Value("${metrics.horizons:1y,3y,5y}") String[] computedHorizons,
+                                       @Value("${ai.stocks.scoring.conservative:return:0.3,stability:0.7}") String conservative,
+                                       @Value("${ai.stocks.scoring.balanced:return:0.5,stability:0.5}") String balanced,
+                                       @Value("${ai.stocks.scoring.aggressive:return:0.7,stability:0.3}") String aggressive) {
+        this.metricsSnapshotService = metricsSnapshotService;
         this.universeService = universeService;
+        this.picksPerPortfolio = Math.max(1, picksPerPortfolio);
+        this.maxPerSector = maxPerSector;
+        this.scoring = new ScoringPipeline(NormalizationUtil.Method.parse(normalizer), horizon, Map.of(
+                "conservative", ScoringPipeline.parseWeights(conservative),
+                "balanced", ScoringPipeline.parseWeights(balanced),
+                "aggressive", ScoringPipeline.parseWeights(aggressive)
+        ));
+        this.scoring.requireHorizonIn(computedHorizons);
     }
 
     public AiStockPortfolioResponse recommend(QuizAnswers answers) {
 
-        // 1) Compute metrics for everything (sp500 + custom sectors)
-        List<StockMetrics> all = metricsService.computeAllMetrics();
-
-        // 2) Normalize so scores are comparable
-        NormalizationUtil.normalizeReturns(all);
-        NormalizationUtil.normalizeStability(all);
+        // 1+2) Metrics for everything (sp500 + custom sectors).
+        // The snapshot is shared and read-only; scores come from the pipeline's own arrays.
+        MetricsSnapshot snapshot = metricsSnapshotService.current();
+        RankingIndex idx = rankingIndex(snapshot);
 
-        // 3) Pick weights based on risk tolerance
-        double wReturn, wStability;
+        // 3) Scoring profile based on risk tolerance
         String tier;
         int riskScore;
 
         String rt = String.valueOf(answers.getRiskTolerance()).toLowerCase();
         switch (rt) {
-            case "low" -> { tier = "conservative"; riskScore = 3; wReturn = 0.30; wStability = 0.70; }
-            case "high" -> { tier = "aggressive";   riskScore = 8; wReturn = 0.70; wStability = 0.30; }
-            default -> { tier = "balanced"; riskScore = 6; wReturn = 0.50; wStability = 0.50; }
+            case "low" -> { tier = "conservative"; riskScore = 3; }
+            case "high" -> { tier = "aggressive";   riskScore = 8; }
+            default -> { tier = "balanced"; riskScore = 6; }
         }
 
-        // 4) Score each stock (higher is better for this user)
-        for (StockMetrics m : all) {
-            m.finalScore = wReturn * m.totalReturn + wStability * m.stabilityScore;
-        }
-
-        // 5) Pick top 6 (unique tickers)
-        List<StockMetrics> top = all.stream()
-                .sorted(Comparator.comparingDouble((StockMetrics m) -> m.finalScore).reversed())
-                .collect(Collectors.toList());
-
-        Map<String, String> tags = universeService.getTickerTags();
+        // 4) Score each stock (higher is better for this user); cached per snapshot and tier
+        double[] scores = scoring.scores(snapshot, tier);
+        String horizon = scoring.horizonUsed(snapshot); // null if the snapshot fell back to lifetime
 
-        List<StockPick> picks = new ArrayList<>();
-        Set<String> used = new HashSet<>();
-
-        for (StockMetrics m : top) {
-            String t = (m.ticker == null) ? "" : m.ticker.trim().toUpperCase();
-            if (t.isEmpty()) continue;
-            if (!universeService.isAllowed(t)) continue;
-            if (!used.add(t)) continue;
-
-            StockPick p = new StockPick();
-            p.ticker = t;
-            p.tag = tags.getOrDefault(t, "sp500");
-            p.weight = 1.0; // temp, we normalize next
-            picks.add(p);
+        // 5) Top k (unique, allowed tickers; at most maxPerSector per sector tag)
+        int[] top = TopKSelector.select(scores, idx.eligible(), picksPerPortfolio,
+                idx.sectors(), idx.sectorCount(), maxPerSector);
 
-            if (picks.size() == 6) break;
-        }
-
-        if (picks.size() != 6) {
-            throw new RuntimeException("Could not select 6 valid tickers from metrics universe.");
+        if (top.length == 0) {
+            throw new RuntimeException("Could not select any valid tickers from metrics universe.");
         }
 
         // 6) Convert scores -> weights (softmax-ish)
-        // Use finalScore to create weights that sum to 1
-        double max = top.stream().mapToDouble(m -> m.finalScore).max().orElse(0.0);
+        // Use the blended score to create weights that sum to 1
+        double max = scores[top[0]];
 
+        List<StockPick> picks = new ArrayList<>(top.length);
         double sum = 0.0;
-        for (int i = 0; i < picks.size(); i++) {
-            StockPick p = picks.get(i);
-            StockMetrics m = top.stream().filter(x -> x.ticker.equalsIgnoreCase(p.ticker)).findFirst().orElse(null);
-            double s = (m == null) ? 0.0 : m.finalScore;
+        for (int i : top) {
+            StockPick p = new StockPick();
+            p.ticker = snapshot.ticker(i);
+            p.tag = idx.tags()[i];
 
             // exp(score - max) for stability
-            p.weight = Math.exp(s - max);
+            p.weight = Math.exp(scores[i] - max);
             sum += p.weight;
+            picks.add(p);
         }
         for (StockPick p : picks) p.weight /= sum;
 
@@ -98,7 +101,37 @@ public class FreeAiStockPortfolioService {
         out.picks = picks;
         out.explanation =
                 "Free heuristic recommender: ranks stocks by blended score = " +
-                wReturn + "*return + " + wStability + "*stability (based on past performance).";
+                scoring.describe(tier) + " (" + scoring.normalizer().name().toLowerCase() +
+                " normalized, based on " + (horizon == null ? "full" : horizon) +
+                " past performance).";
         return out;
     }
+
+    // ---- helpers ----
+
+    private RankingIndex rankingIndex(MetricsSnapshot snapshot) {
+        // the universe is reloaded independently of snapshots (universe.dir), so key on both
+        UniverseIndex universe = universeService.getIndex();
+        RankingIndex idx = rankingIndex.get();
+        if (idx != null && idx.version() == snapshot.getVersion() && idx.universe() == universe) return idx;
+
+        int n = snapshot.size();
+        boolean[] scored = scoring.scoredRows(snapshot); // complete history for the scoring horizon
+        boolean[] eligible = new boolean[n];
+        String[] tags = new String[n];
+        int[] sectors = new int[n];
+        Map<String, Integer> sectorIds = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            String t = snapshot.ticker(i);
+            // first occurrence only, so a ticker is never picked twice
+            eligible[i] = scored[i] && !t.isEmpty() && universe.contains(t) && snapshot.indexOf(t) == i;
+            tags[i] = universe.tagOf(t);
+            sectors[i] = sectorIds.computeIfAbsent(tags[i], k -> sectorIds.size());
+        }
+
+        idx = new RankingIndex(snapshot.getVersion(), universe, eligible, tags, sectors, sectorIds.size());
+        rankingIndex.set(idx);
+        return idx;
+    }
 }
@@ -0,0 +1,47 @@
+package com.portfolioai.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Minimal US equity calendar: weekdays only, no exchange holidays.
+ * Daily bars are assumed to be published by DATA_READY (New York time).
+ */
+public final class MarketCalendar {
+
+    public static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    public static final LocalTime DATA_READY = LocalTime.of(18, 0);
+
+    private MarketCalendar() {
+    }
+
+    /** Most recent session whose daily bar should already be available. */
+    public static LocalDate lastCompletedSession(ZonedDateTime now) {
+        ZonedDateTime ny = now.withZoneSameInstant(NEW_YORK);
+        LocalDate d = ny.toLocalDate();
+        if (ny.toLocalTime().isBefore(DATA_READY)) d = d.minusDays(1);
+        while (isWeekend(d)) d = d.minusDays(1);
+        return d;
+    }
+
+    public static LocalDate lastCompletedSession() {
+        return lastCompletedSession(ZonedDateTime.now(NEW_YORK));
+    }
+
+    /** Next moment (after `now`) when a new daily bar becomes available. */
+    public static ZonedDateTime nextDataReady(ZonedDateTime now) {
+        ZonedDateTime ny = now.withZoneSameInstant(NEW_YORK);
+        LocalDate d = ny.toLocalDate();
+        if (!ny.toLocalTime().isBefore(DATA_READY)) d = d.plusDays(1);
+        while (isWeekend(d)) d = d.plusDays(1);
+        return ZonedDateTime.of(d, DATA_READY, NEW_YORK);
+    }
+
+    private static boolean isWeekend(LocalDate d) {
+        DayOfWeek dow = d.getDayOfWeek();
+        return dow == DayOfWeek.SATURDAY || dow == DayOfWeek.SUNDAY;
+    }
+}
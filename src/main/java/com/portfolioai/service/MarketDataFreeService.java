@@ -1,75 +1,271 @@
 package com.portfolioai.service;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
-import java.util.ArrayList;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+
 @Service
 public class MarketDataFreeService {
 
+    private static final DateTimeFormatter STOOQ_DATE = DateTimeFormatter.BASIC_ISO_DATE; // yyyyMMdd
+    // relative change in a re-fetched close that means the history was re-adjusted
+    private static final double ADJUSTMENT_TOLERANCE = 1e-6;
+    // how far behind the expected session a last bar may be and still count as published late
+    private static final int LATE_WINDOW_DAYS = 4;
+
     private final HttpClient http = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(10))
             .build();
 
-    // Cache so you don't refetch on every request
-    private final Map<String, List<Double>> closeCache = new ConcurrentHashMap<>();
+    private final PriceStore priceStore;
+
+    // Cache so you don't refetch on every request (bounded, expires after each close)
+    private final PriceCache closeCache;
+    private final long expiryGraceMillis;
+    private final long lateRetryMillis;
+
+    // Single-flight: at most one load per ticker, concurrent callers share it
+    private final Map<String, CompletableFuture<PriceSeries>> inFlight = new ConcurrentHashMap<>();
+
+    // Negative cache: ticker -> time (ms) until which we don't retry an empty/failed load
+    private final Map<String, Long> failedUntil = new ConcurrentHashMap<>();
+    private final long negativeTtlMillis;
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "price-cache-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public MarketDataFreeService(PriceStore priceStore,
+                                 @Value("${marketdata.negative-cache-ttl-minutes:60}") long negativeTtlMinutes,
+                                 @Value("${marketdata.cache.max-mb:128}") long cacheMaxMb,
+                                 @Value("${marketdata.cache.expiry-grace-minutes:120}") long expiryGraceMinutes,
+                                 @Value("${marketdata.cache.late-retry-minutes:30}") long lateRetryMinutes) {
+        this.priceStore = priceStore;
+        this.negativeTtlMillis = TimeUnit.MINUTES.toMillis(Math.max(0, negativeTtlMinutes));
+        this.closeCache = new PriceCache(cacheMaxMb * 1024 * 1024);
+        this.expiryGraceMillis = TimeUnit.MINUTES.toMillis(Math.max(0, expiryGraceMinutes));
+        this.lateRetryMillis = TimeUnit.MINUTES.toMillis(Math.max(1, lateRetryMinutes));
+    }
 
     /**
      * Loads daily closes for a US stock ticker using Stooq (free).
+     * History is kept in the local PriceStore; only bars newer than the last
+     * stored date are downloaded. Concurrent misses on the same ticker share one
+     * load, and tickers that came back empty are not retried for the negative TTL.
      * Returns closes in chronological order (oldest -> newest).
      */
-    public List<Double> loadDailyClosesUS(String ticker) {
-        if (ticker == null) return List.of();
+    public PriceSeries loadDailyClosesUS(String ticker) {
+        if (ticker == null) return PriceSeries.empty();
         String t = ticker.trim().toUpperCase();
-        if (t.isEmpty()) return List.of();
+        if (t.isEmpty()) return PriceSeries.empty();
 
         // Return cached if available
-        List<Double> cached = closeCache.get(t);
+        PriceSeries cached = closeCache.get(t, System.currentTimeMillis());
         if (cached != null) return cached;
 
-        // Fetch + parse
-        List<Double> closes = fetchStooqDailyCloses(t);
-        closeCache.put(t, closes);
-        return closes;
+        // Recently failed -> don't hammer Stooq again
+        Long until = failedUntil.get(t);
+        if (until != null) {
+            if (System.currentTimeMillis() < until) return PriceSeries.empty();
+            failedUntil.remove(t, until);
+        }
+
+        return loadShared(t);
+    }
+
+    /** Hit/miss/eviction/load-time counters for the close cache. */
+    public PriceCache.Stats getCacheStats() {
+        return closeCache.stats();
+    }
+
+    /**
+     * Refresh-ahead: once a new daily bar is due, reload the tickers that were
+     * actually read, so requests keep hitting the cache instead of blocking on Stooq.
+     * Keys stay marked in flight until their reload finishes, so a check that runs
+     * while a batch is still queued does not queue them again.
+     */
+    @Scheduled(fixedDelayString = "${marketdata.cache.refresh-check-ms:300000}")
+    public void refreshAhead() {
+        List<String> due = closeCache.dueForRefresh(System.currentTimeMillis());
+        if (due.isEmpty()) return;
+        refresher.execute(() -> {
+            for (String t : due) {
+                try {
+                    loadShared(t);
+                } finally {
+                    closeCache.refreshDone(t); // no-op if the load put a fresh entry
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Single-flight load (disk + incremental fetch) that also refreshes the cache.
+     * Concurrent callers for the same ticker wait on the same future.
+     */
+    private PriceSeries loadShared(String t) {
+        CompletableFuture<PriceSeries> mine = new CompletableFuture<>();
+        CompletableFuture<PriceSeries> running = inFlight.putIfAbsent(t, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (RuntimeException e) {
+                return PriceSeries.empty();
+            }
+        }
+
+        try {
+            PriceSeries closes = loadFresh(t);
+            mine.complete(closes);
+            return closes;
+        } catch (RuntimeException e) {
+            System.out.println("WARN: Failed to load closes for " + t + ": " + e.getMessage());
+            failedUntil.put(t, System.currentTimeMillis() + negativeTtlMillis);
+            mine.complete(PriceSeries.empty());
+            return PriceSeries.empty();
+        } finally {
+            inFlight.remove(t, mine);
+        }
     }
 
     /**
      * Convert closes to daily returns: r[t] = close[t]/close[t-1] - 1
      */
-    public List<Double> closesToDailyReturns(List<Double> closes) {
-        if (closes == null || closes.size() < 2) return List.of();
-        List<Double> rets = new ArrayList<>(closes.size() - 1);
+    public double[] closesToDailyReturns(PriceSeries closes) {
+        if (closes == null || closes.size() < 2) return new double[0];
+        double[] rets = new double[closes.size() - 1];
+        int n = 0;
         for (int i = 1; i < closes.size(); i++) {
-            double prev = closes.get(i - 1);
-            double cur = closes.get(i);
+            double prev = closes.close(i - 1);
+            double cur = closes.close(i);
             if (prev <= 0 || cur <= 0) continue;
-            rets.add((cur / prev) - 1.0);
+            rets[n++] = (cur / prev) - 1.0;
         }
-        return rets;
+        return n == rets.length ? rets : Arrays.copyOf(rets, n);
     }
 
     /**
      * Simple "health" check: do we have enough data to score?
      */
-    public boolean hasEnoughData(List<Double> closes, int minPoints) {
+    public boolean hasEnoughData(PriceSeries closes, int minPoints) {
         return closes != null && closes.size() >= minPoints;
     }
 
     // ---------------- internal helpers ----------------
 
-    private List<Double> fetchStooqDailyCloses(String tickerUpper) {
+    private PriceSeries loadFresh(String tickerUpper) {
+        // Disk first, then fetch only what is missing
+        long t0 = System.nanoTime();
+        PriceSeries closes = loadBars(tickerUpper).toSeries();
+        closeCache.recordLoad(System.nanoTime() - t0);
+
+        if (closes.isEmpty()) {
+            failedUntil.put(tickerUpper, System.currentTimeMillis() + negativeTtlMillis);
+            return closes;
+        }
+        if (closes.size() < 50) {
+            System.out.println("WARN: Low data count for " + tickerUpper + ": " + closes.size());
+        }
+
+        // Valid until the next daily bar is published (+ grace for refresh-ahead)
+        ZonedDateTime now = ZonedDateTime.now();
+        long nextReady = MarketCalendar.nextDataReady(now).toInstant().toEpochMilli();
+        long refreshAt = nextReady;
+        if (isLate(closes.lastDay(), MarketCalendar.lastCompletedSession(now))) {
+            // loaded before Stooq published the expected bar: try again soon, not tomorrow
+            refreshAt = Math.min(nextReady, now.toInstant().toEpochMilli() + lateRetryMillis);
+        }
+        closeCache.put(tickerUpper, closes, refreshAt, nextReady + expiryGraceMillis);
+        return closes;
+    }
+
+    private PriceBars loadBars(String tickerUpper) {
+        PriceBars stored = priceStore.read(tickerUpper);
+        LocalDate wanted = MarketCalendar.lastCompletedSession();
+
+        if (!stored.isEmpty() && stored.lastDay() >= wanted.toEpochDay()) {
+            return stored; // already up to date
+        }
+
+        // Refetch from the last stored bar, not the day after: Stooq closes are split- and
+        // dividend-adjusted, so if that bar's close changed the whole history was re-based
+        LocalDate from = stored.isEmpty() ? null : LocalDate.ofEpochDay(stored.lastDay());
+        PriceBars fetched = fetchStooqDailyBars(tickerUpper, from);
+
+        if (!stored.isEmpty() && !fetched.isEmpty() && wasAdjusted(stored, fetched)) {
+            PriceBars full = fetchStooqDailyBars(tickerUpper, null);
+            if (full.isEmpty()) return stored; // keep the old basis rather than mixing two
+            System.out.println("Price history for " + tickerUpper + " was re-adjusted; reloaded " + full.size() + " bars");
+            priceStore.replace(tickerUpper, full);
+            return full;
+        }
+
+        int lastStored = stored.lastDay();
+        priceStore.append(tickerUpper, lastStored, fetched);
+        stored.addAll(fetched.after(lastStored));
+        return stored;
+    }
+
+    // Last bar is before the expected session but recent, i.e. the publish is late. Older gaps
+    // (delisted / halted tickers) wait for the normal refresh; exchange holidays, which the
+    // calendar does not know, just cost a few extra retries that day.
+    private static boolean isLate(int lastDay, LocalDate expected) {
+        long wanted = expected.toEpochDay();
+        return lastDay < wanted && lastDay >= wanted - LATE_WINDOW_DAYS;
+    }
+
+    // true if the fetched copy of the last stored bar has a different close
+    private static boolean wasAdjusted(PriceBars stored, PriceBars fetched) {
+        int day = stored.lastDay();
+        for (int i = 0; i < fetched.size() && fetched.day(i) <= day; i++) {
+            if (fetched.day(i) == day) {
+                double old = stored.close(stored.size() - 1);
+                return Math.abs(fetched.close(i) - old) > ADJUSTMENT_TOLERANCE * Math.abs(old);
+            }
+        }
+        return false; // overlap bar missing from the response: nothing to compare
+    }
+
+    /**
+     * Downloads daily bars from Stooq, optionally only from `fromInclusive` onward.
+     * Returns empty bars on any failure.
+     */
+    private PriceBars fetchStooqDailyBars(String tickerUpper, LocalDate fromInclusive) {
         try {
             // Stooq expects lowercase + ".us" for US tickers
             String stooqSymbol = tickerUpper.toLowerCase() + ".us";
             String url = "https://stooq.com/q/d/l/?s=" + stooqSymbol + "&i=d";
+            if (fromInclusive != null) {
+                url += "&d1=" + fromInclusive.format(STOOQ_DATE)
+                        + "&d2=" + LocalDate.now(MarketCalendar.NEW_YORK).format(STOOQ_DATE);
+            }
 
             HttpRequest req = HttpRequest.newBuilder()
                     .uri(URI.create(url))
@@ -77,54 +273,25 @@ public class MarketDataFreeService {
                     .GET()
                     .build();
 
-            HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
-            if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
-                System.out.println("WARN: Stooq HTTP " + resp.statusCode() + " for " + tickerUpper);
-                return List.of();
-            }
-
-            String csv = resp.body();
-            if (csv == null || csv.trim().isEmpty()) {
-                System.out.println("WARN: Empty CSV from Stooq for " + tickerUpper);
-                return List.of();
-            }
-
-            // CSV format:
-            // Date,Open,High,Low,Close,Volume
-            // 2020-01-02,....
-            String[] lines = csv.split("\\R");
-            if (lines.length <= 1) return List.of();
-
-            List<Double> closes = new ArrayList<>(lines.length - 1);
-
-            // Start at 1 to skip header
-            for (int i = 1; i < lines.length; i++) {
-                String line = lines[i].trim();
-                if (line.isEmpty()) continue;
-
-                String[] cols = line.split(",");
-                if (cols.length < 5) continue;
-
-                String closeStr = cols[4].trim();
-                if (closeStr.isEmpty() || closeStr.equalsIgnoreCase("null")) continue;
-
-                try {
-                    double close = Double.parseDouble(closeStr);
-                    if (close > 0) closes.add(close);
-                } catch (NumberFormatException ignored) {
+            HttpResponse<InputStream> resp = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = resp.body()) {
+                if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+                    System.out.println("WARN: Stooq HTTP " + resp.statusCode() + " for " + tickerUpper);
+                    return new PriceBars(1);
                 }
-            }
 
-            // Stooq returns chronological already (oldest->newest). If not, you can sort by date,
-            // but we only stored closes so we assume order is okay.
-            if (closes.size() < 50) {
-                System.out.println("WARN: Low data count for " + tickerUpper + ": " + closes.size());
+                // Streams Date,Open,High,Low,Close,Volume straight into primitive columns.
+                // Stooq returns chronological already (oldest->newest);
+                // PriceBars drops anything out of order.
+                PriceBars bars = StooqCsvParser.parse(body);
+                if (bars.isEmpty() && fromInclusive == null) {
+                    System.out.println("WARN: Empty CSV from Stooq for " + tickerUpper);
+                }
+                return bars;
             }
-
-            return closes;
         } catch (Exception e) {
             System.out.println("WARN: Failed Stooq fetch for " + tickerUpper + ": " + e.getMessage());
-            return List.of();
+            return new PriceBars(1);
         }
     }
 }
@@ -1,16 +1,19 @@
 package com.portfolioai.service;
 
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.InputStreamReader;
-import java.net.URL;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class MarketDataService {
 
+    // Funds always allowed; stock tickers are allowed if they are in the universe
     private static final Map<String, String> STOOQ = Map.of(
             "VOO", "voo.us",
             "VXUS", "vxus.us",
@@ -18,81 +21,163 @@ public class MarketDataService {
             "SPY", "spy.us"
     );
 
+    // Above this many assets ReturnStats.cov is left null; use riskModel instead
+    private static final int DENSE_COV_LIMIT = 1000;
+
+    /** Shared via the returns cache: treat as read-only. */
     public static class ReturnStats {
         public double[] mu;
         public double[][] cov;
         public List<double[]> alignedReturns;
+        public ReturnsMatrix returns; // same data, contiguous and date-stamped
+        public RiskModel riskModel;   // Σ from the configured estimator (cov is its dense form)
 
         public ReturnStats(double[] mu, double[][] cov, List<double[]> alignedReturns) {
             this.mu = mu;
             this.cov = cov;
+            this.riskModel = new DenseRiskModel(cov);
             this.alignedReturns = alignedReturns;
         }
+
+        public ReturnStats(double[] mu, double[][] cov, ReturnsMatrix returns) {
+            this(mu, new DenseRiskModel(cov), cov, returns);
+        }
+
+        public ReturnStats(double[] mu, RiskModel riskModel, double[][] cov, ReturnsMatrix returns) {
+            this.mu = mu;
+            this.cov = cov;
+            this.riskModel = riskModel;
+            this.returns = returns;
+            this.alignedReturns = new ArrayList<>(returns.assets());
+            for (int i = 0; i < returns.assets(); i++) alignedReturns.add(returns.row(i));
+        }
     }
 
-    public ReturnStats loadReturns(List<String> assets, int yearsBack) throws Exception {
-        List<double[]> returnsPerAsset = new ArrayList<>();
-        int minLen = Integer.MAX_VALUE;
+    // `session` is the session the data should end on; `createdAt` (ms) bounds how long a
+    // result whose data ends before it (bar not yet published) may be served
+    private record CachedStats(LocalDate session, long createdAt, CompletableFuture<ReturnStats> stats) { }
+
+    private final MarketDataFreeService marketDataFreeService;
+    private final UniverseService universeService;
+    private final PriceMatrixService priceMatrixService;
+    private final ReturnsAligner.MissingDataPolicy defaultPolicy;
+    private final RiskModelEstimator estimator;
+    private final int factors;
+    private final double ewmaLambda;
+    private final long lateRetryMillis;
+
+    // (assets, yearsBack, policy, estimator) -> stats, valid while their data ends on the expected session
+    private final Map<String, CachedStats> returnsCache = new ConcurrentHashMap<>();
+
+    public MarketDataService(MarketDataFreeService marketDataFreeService,
+                             UniverseService universeService,
+                             PriceMatrixService priceMatrixService,
+                             @Value("${marketdata.returns.missing-data:drop}") String missingData,
+                             @Value("${marketdata.risk-model:sample}") String riskModel,
+                             @Value("${marketdata.risk-model.factors:5}") int factors,
+                             @Value("${marketdata.risk-model.ewma-lambda:0.94}") double ewmaLambda,
+                             @Value("${marketdata.cache.late-retry-minutes:30}") long lateRetryMinutes) {
+        this.marketDataFreeService = marketDataFreeService;
+        this.universeService = universeService;
+        this.priceMatrixService = priceMatrixService;
+        this.defaultPolicy = ReturnsAligner.MissingDataPolicy.parse(missingData);
+        this.estimator = RiskModelEstimator.parse(riskModel);
+        this.factors = Math.max(1, factors);
+        this.ewmaLambda = ewmaLambda > 0 && ewmaLambda < 1 ? ewmaLambda : 0.94;
+        this.lateRetryMillis = TimeUnit.MINUTES.toMillis(Math.max(0, lateRetryMinutes)); // 0 = never keep late data
+    }
 
-        for (String a : assets) {
-            String stooqTicker = STOOQ.get(a);
-            if (stooqTicker == null) throw new IllegalArgumentException("Unknown asset: " + a);
-
-            String url = "https://stooq.com/q/d/l/?s=" + stooqTicker + "&i=d";
-            List<Double> closes = new ArrayList<>();
-
-            try (InputStreamReader reader = new InputStreamReader(new URL(url).openStream())) {
-                Iterable<CSVRecord> records = CSVFormat.DEFAULT
-                        .withFirstRecordAsHeader()
-                        .parse(reader);
-                for (CSVRecord r : records) {
-                    closes.add(Double.parseDouble(r.get("Close")));
-                }
-            }
+    public ReturnStats loadReturns(List<String> assets, int yearsBack) throws Exception {
+        return loadReturns(assets, yearsBack, defaultPolicy, estimator);
+    }
 
-            int keep = Math.min(closes.size(), yearsBack * 252);
-            closes = closes.subList(closes.size() - keep, closes.size());
+    public ReturnStats loadReturns(List<String> assets, int yearsBack,
+                                   ReturnsAligner.MissingDataPolicy policy) throws Exception {
+        return loadReturns(assets, yearsBack, policy, estimator);
+    }
 
-            double[] rets = new double[closes.size() - 1];
-            for (int i = 1; i < closes.size(); i++) {
-                rets[i - 1] = closes.get(i) / closes.get(i - 1) - 1.0;
+    /**
+     * mu / cov / date-aligned daily returns for the given assets over the last
+     * `yearsBack` years, with Σ from the given estimator. Results are cached per
+     * asset list, window, policy and estimator until the next session; one whose
+     * data ends before the last completed session (computed before the bar was
+     * published) is only kept for marketdata.cache.late-retry-minutes. Concurrent
+     * misses on the same key share one computation.
+     */
+    public ReturnStats loadReturns(List<String> assets, int yearsBack,
+                                   ReturnsAligner.MissingDataPolicy policy,
+                                   RiskModelEstimator estimator) throws Exception {
+        LocalDate session = MarketCalendar.lastCompletedSession();
+        long now = System.currentTimeMillis();
+        String key = String.join(",", assets) + "|" + yearsBack + "|" + policy + "|" + estimator;
+
+        CachedStats cached = returnsCache.get(key);
+        if (cached == null || !isValid(cached, session, now)) {
+            // Single-flight per key: the first caller computes outside the map (it may fetch
+            // from Stooq), later callers wait on its future. Only the cheap swap runs in merge().
+            CachedStats mine = new CachedStats(session, now, new CompletableFuture<>());
+            cached = returnsCache.merge(key, mine, (old, neu) -> isValid(old, session, now) ? old : neu);
+            if (cached == mine) {
+                try {
+                    mine.stats().complete(computeReturns(assets, yearsBack, policy, estimator));
+                } catch (RuntimeException | Error e) {
+                    returnsCache.remove(key, mine); // don't cache failures
+                    mine.stats().completeExceptionally(e);
+                    throw e;
+                }
             }
-
-            returnsPerAsset.add(rets);
-            minLen = Math.min(minLen, rets.length);
         }
 
-        // Align lengths
-        for (int i = 0; i < returnsPerAsset.size(); i++) {
-            double[] r = returnsPerAsset.get(i);
-            returnsPerAsset.set(i, Arrays.copyOfRange(r, r.length - minLen, r.length));
+        try {
+            return cached.stats().join();
+        } catch (CompletionException e) {
+            // rethrow the computing caller's own exception (e.g. IllegalArgumentException -> 400)
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
         }
+    }
 
-        int n = assets.size();
-        double[] mu = new double[n];
-        for (int i = 0; i < n; i++) {
-            double sum = 0;
-            for (double r : returnsPerAsset.get(i)) sum += r;
-            mu[i] = sum / minLen;
+    // Same session, and either still computing, ending on that session, or within the late-retry window
+    private boolean isValid(CachedStats c, LocalDate session, long now) {
+        if (!c.session().equals(session)) return false;
+        CompletableFuture<ReturnStats> f = c.stats();
+        if (!f.isDone() || now - c.createdAt() < lateRetryMillis) return true;
+        ReturnsMatrix r = f.isCompletedExceptionally() ? null : f.join().returns;
+        return r != null && r.periods() > 0 && r.day(r.periods() - 1) >= session.toEpochDay();
+    }
+
+    private ReturnStats computeReturns(List<String> assets, int yearsBack,
+                                       ReturnsAligner.MissingDataPolicy policy,
+                                       RiskModelEstimator estimator) {
+        for (String a : assets) {
+            if (!STOOQ.containsKey(a) && !universeService.isAllowed(a)) throw new IllegalArgumentException("Unknown asset: " + a);
         }
 
-        double[][] cov = new double[n][n];
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                cov[i][j] = covariance(returnsPerAsset.get(i), returnsPerAsset.get(j));
+        ReturnsMatrix returns;
+        PriceMatrix matrix = priceMatrixService.currentFor(assets);
+        if (matrix != null) {
+            // Straight off the memory-mapped matrix: no per-ticker series on the heap
+            int[] rows = new int[assets.size()];
+            for (int i = 0; i < rows.length; i++) rows[i] = matrix.indexOf(assets.get(i));
+            returns = matrix.returns(rows, policy, yearsBack * 252);
+        } else {
+            List<PriceSeries> closes = new ArrayList<>(assets.size());
+            for (String a : assets) {
+                // Same Stooq symbol (<ticker>.us), parser and local store as the stock universe
+                PriceSeries series = marketDataFreeService.loadDailyClosesUS(a);
+                if (series.size() < 2) throw new IllegalStateException("No price history for " + a);
+                closes.add(series);
             }
+
+            // Join on trading date (not tail length) and keep the last yearsBack years
+            returns = ReturnsAligner.align(closes, policy, yearsBack * 252);
         }
+        if (returns.periods() < 2) throw new IllegalStateException("Not enough overlapping history for " + assets);
 
-        return new ReturnStats(mu, cov, returnsPerAsset);
-    }
+        double[] mu = CovarianceEngine.means(returns);
+        RiskModel risk = RiskModels.estimate(estimator, returns, mu, factors, ewmaLambda);
+        double[][] cov = assets.size() <= DENSE_COV_LIMIT ? risk.toDense() : null;
 
-    private double covariance(double[] x, double[] y) {
-        double meanX = Arrays.stream(x).average().orElse(0);
-        double meanY = Arrays.stream(y).average().orElse(0);
-        double sum = 0;
-        for (int i = 0; i < x.length; i++) {
-            sum += (x[i] - meanX) * (y[i] - meanY);
-        }
-        return sum / (x.length - 1);
+        return new ReturnStats(mu, risk, cov, returns);
     }
 }
@@ -0,0 +1,170 @@
+package com.portfolioai.service;
+
+/**
+ * Solves the long-only mean-variance problem
+ *   minimize  riskAversion * w'Σw - mu'w   subject to ConstraintModel
+ * with accelerated projected gradient (FISTA with adaptive restart).
+ *
+ * The step is 1/L with L = 2 * riskAversion * (upper bound on the largest
+ * eigenvalue of Σ), so every step decreases the objective; iteration stops once
+ * the projected-gradient residual drops below the tolerance. All work arrays
+ * are allocated once per solve. Σ comes in as a RiskModel (dense or factor).
+ */
+public final class MeanVarianceSolver {
+
+    public static final class Result {
+        public final double[] weights;
+        public final int iterations;
+        public final double residual;
+        public final boolean converged;
+
+        Result(double[] weights, int iterations, double residual, boolean converged) {
+            this.weights = weights;
+            this.iterations = iterations;
+            this.residual = residual;
+            this.converged = converged;
+        }
+    }
+
+    /**
+     * mu and Σ prepared once (risk model, eigenvalue bound) so many solves,
+     * e.g. the points of an efficient frontier, can share them. Read-only.
+     * Σ is only touched through RiskModel.multiply, so a factor model costs
+     * O(nk) per iteration instead of O(n^2).
+     */
+    public static final class Problem {
+        final int n;
+        final double[] mu;
+        final RiskModel risk;
+        final double eigenBound;
+
+        private Problem(double[] mu, RiskModel risk) {
+            this.n = mu.length;
+            if (risk.size() != n) throw new IllegalArgumentException("mu and cov must have the same size");
+            this.mu = mu.clone();
+            this.risk = risk;
+            this.eigenBound = risk.maxEigenvalueBound();
+        }
+
+        public int size() {
+            return n;
+        }
+
+        /** w'mu */
+        public double expectedReturn(double[] w) {
+            double s = 0;
+            for (int i = 0; i < n; i++) s += mu[i] * w[i];
+            return s;
+        }
+
+        /** w'Σw */
+        public double variance(double[] w) {
+            return risk.variance(w);
+        }
+    }
+
+    private final double tolerance;
+    private final int maxIterations;
+
+    public MeanVarianceSolver(double tolerance, int maxIterations) {
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    public Result solve(double[] mu, double[][] cov, double riskAversion, ConstraintModel constraints) {
+        return solve(mu, cov, riskAversion, constraints, null);
+    }
+
+    public Result solve(double[] mu, double[][] cov, double riskAversion,
+                        ConstraintModel constraints, double[] start) {
+        return solve(prepare(mu, cov), riskAversion, constraints, start);
+    }
+
+    public Result solve(double[] mu, RiskModel risk, double riskAversion,
+                        ConstraintModel constraints, double[] start) {
+        return solve(prepare(mu, risk), riskAversion, constraints, start);
+    }
+
+    public static Problem prepare(double[] mu, double[][] cov) {
+        return new Problem(mu, new DenseRiskModel(cov));
+    }
+
+    public static Problem prepare(double[] mu, RiskModel risk) {
+        return new Problem(mu, risk);
+    }
+
+    /** @param start optional warm start (projected before use) */
+    public Result solve(Problem problem, double riskAversion, ConstraintModel constraints, double[] start) {
+        int n = problem.n;
+        if (constraints.size() != n) {
+            throw new IllegalArgumentException("problem and constraints must have the same size");
+        }
+        double[] mu = problem.mu;
+        RiskModel risk = problem.risk;
+
+        double lipschitz = 2 * riskAversion * problem.eigenBound;
+        double step = lipschitz > 0 ? 1.0 / lipschitz : 1.0;
+
+        double[] w = new double[n];
+        if (start != null) constraints.project(start, w);
+        else System.arraycopy(constraints.feasibleStart(), 0, w, 0, n);
+
+        double[] y = w.clone();
+        double[] prev = new double[n];
+        double[] grad = new double[n];
+        double[] next = new double[n];
+        double[] work = new double[risk.workSize()];
+        double momentum = 1;
+
+        int iter = 0;
+        double residual = Double.POSITIVE_INFINITY;
+
+        while (iter < maxIterations) {
+            iter++;
+
+            // next = P(y - step * ∇f(y))
+            gradient(risk, mu, riskAversion, y, grad, work);
+            for (int i = 0; i < n; i++) next[i] = y[i] - step * grad[i];
+            constraints.project(next, next);
+
+            // residual: how far one projected step moves us (scaled back to gradient units)
+            double moved = 0;
+            for (int i = 0; i < n; i++) moved = Math.max(moved, Math.abs(next[i] - y[i]));
+            residual = moved / step;
+
+            System.arraycopy(w, 0, prev, 0, n);
+            System.arraycopy(next, 0, w, 0, n);
+            if (residual < tolerance) break;
+
+            // adaptive restart when momentum points uphill
+            double uphill = 0;
+            for (int i = 0; i < n; i++) uphill += (y[i] - w[i]) * (w[i] - prev[i]);
+            if (uphill > 0) momentum = 1;
+
+            double nextMomentum = 0.5 * (1 + Math.sqrt(1 + 4 * momentum * momentum));
+            double beta = (momentum - 1) / nextMomentum;
+            momentum = nextMomentum;
+            for (int i = 0; i < n; i++) y[i] = w[i] + beta * (w[i] - prev[i]);
+        }
+
+        return new Result(w, iter, residual, residual < tolerance);
+    }
+
+    /** riskAversion * w'Σw - mu'w */
+    public static double objective(double[] mu, double[][] cov, double riskAversion, double[] w) {
+        double risk = 0, ret = 0;
+        for (int i = 0; i < w.length; i++) {
+            double s = 0;
+            for (int j = 0; j < w.length; j++) s += cov[i][j] * w[j];
+            risk += w[i] * s;
+            ret += mu[i] * w[i];
+        }
+        return riskAversion * risk - ret;
+    }
+
+    private static void gradient(RiskModel risk, double[] mu, double riskAversion,
+                                 double[] w, double[] out, double[] work) {
+        risk.multiply(w, out, work);
+        for (int i = 0; i < mu.length; i++) out[i] = 2 * riskAversion * out[i] - mu[i];
+    }
+}
@@ -1,49 +1,116 @@
 package com.portfolioai.service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.portfolioai.model.HorizonMetrics;
 import com.portfolioai.model.StockMetrics;
 
+import jakarta.annotation.PreDestroy;
+
 @Service
 public class MetricsService {
 
+    private static final int MOMENTUM_LOOKBACK = 231; // ~11 months of trading days
+    private static final int MOMENTUM_SKIP = 21;      // ~1 month
+
     private final UniverseService universeService;
     private final MarketDataFreeService marketDataFreeService;
+    private final MetricsStateStore stateStore;
+
+    // Trailing windows (e.g. "1y" -> 252) and the rolling window, all evaluated in one pass
+    private final String[] horizonNames;
+    private final int[] horizonDays;
+    private final int rollingWindow;
+    private final int lookback; // trailing bars any window or momentum reads
 
-    public MetricsService(UniverseService universeService, MarketDataFreeService marketDataFreeService) {
+    // Running per-ticker statistics and the metrics last built from them; a refresh
+    // only folds in the bars added since, and reuses the metrics if there are none
+    private final Map<String, Tracked> tracked = new ConcurrentHashMap<>();
+
+    private record Tracked(MetricsState state, StockMetrics metrics) {
+    }
+
+    // Bounded pool: at most `concurrency` Stooq downloads in flight at once
+    private final ExecutorService fetchPool;
+    private final int concurrency;
+    private final long tickerTimeoutMillis;
+
+    public MetricsService(UniverseService universeService,
+                          MarketDataFreeService marketDataFreeService,
+                          MetricsStateStore stateStore,
+                          @Value("${metrics.fetch.concurrency:16}") int concurrency,
+                          @Value("${metrics.fetch.ticker-timeout-seconds:30}") long tickerTimeoutSeconds,
+                          @Value("${metrics.horizons:1y,3y,5y}") String[] horizons,
+                          @Value("${metrics.rolling-window:63}") int rollingWindow) {
         this.universeService = universeService;
         this.marketDataFreeService = marketDataFreeService;
+        this.stateStore = stateStore;
+        this.horizonNames = new String[horizons.length];
+        this.horizonDays = new int[horizons.length];
+        for (int i = 0; i < horizons.length; i++) {
+            horizonNames[i] = horizons[i].trim().toLowerCase();
+            horizonDays[i] = WindowMetrics.parseHorizon(horizons[i]);
+        }
+        this.rollingWindow = Math.max(2, rollingWindow);
+        int span = this.rollingWindow;
+        for (int d : horizonDays) span = Math.max(span, d);
+        // WindowMetrics reads the last span + window closes (window bars warm up the rolling window)
+        this.lookback = Math.max(span + this.rollingWindow, MOMENTUM_LOOKBACK + MOMENTUM_SKIP) + 1;
+        this.concurrency = Math.max(1, concurrency);
+        this.fetchPool = Executors.newFixedThreadPool(this.concurrency, daemonThreads("metrics-fetch-"));
+        this.tickerTimeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, tickerTimeoutSeconds));
     }
 
     /**
      * Computes all metrics for every ticker in UniverseService (SP500 + custom sectors).
-     * Won't crash if a ticker fails (it will just get "bad" metrics).
+     * Tickers are fetched in parallel (bounded by metrics.fetch.concurrency), but the
+     * result list always follows universe order.
+     * Won't crash if a ticker fails or times out (it will just get "bad" metrics).
+     * Deadlines are measured from one start time rather than per get(), so waits on
+     * slow tickers early in the list do not add up: the whole refresh is bounded by
+     * ceil(tickers / concurrency) * metrics.fetch.ticker-timeout-seconds.
      */
     public List<StockMetrics> computeAllMetrics() {
-        List<StockMetrics> out = new ArrayList<>();
+        long start = System.nanoTime();
+        List<String> tickers = new ArrayList<>();
+        List<Future<StockMetrics>> futures = new ArrayList<>();
 
         for (String ticker : universeService.getAllowedTickers()) {
-            try {
-                if (ticker == null || ticker.isBlank()) continue;
-
-                // ✅ This matches YOUR MarketDataFreeService
-                List<Double> closes = marketDataFreeService.loadDailyClosesUS(ticker);
-
-                StockMetrics m = compute(ticker, closes);
-                out.add(m);
+            if (ticker == null || ticker.isBlank()) continue;
+            tickers.add(ticker);
+            futures.add(fetchPool.submit(() -> compute(ticker, marketDataFreeService.loadDailyClosesUS(ticker))));
+        }
 
+        // The pool runs at most `concurrency` tickers at a time, so ticker i cannot start
+        // before i / concurrency earlier batches: its deadline allows for that queueing.
+        long perTicker = TimeUnit.MILLISECONDS.toNanos(tickerTimeoutMillis);
+        List<StockMetrics> out = new ArrayList<>(tickers.size());
+        for (int i = 0; i < tickers.size(); i++) {
+            Future<StockMetrics> f = futures.get(i);
+            long deadline = start + (i / concurrency + 1) * perTicker;
+            try {
+                out.add(f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                f.cancel(true);
+                out.add(badMetrics(tickers.get(i)));
             } catch (Exception e) {
-                StockMetrics m = new StockMetrics();
-                m.ticker = ticker;
-                m.totalReturn = 0;
-                m.volatility = 1.0;
-                m.maxDrawdown = -1.0;
-                m.stabilityScore = 0;
-                m.finalScore = 0;
-                out.add(m);
+                // failure or deadline passed
+                f.cancel(true);
+                out.add(badMetrics(tickers.get(i)));
             }
         }
 
@@ -53,66 +120,111 @@ public class MetricsService {
     /**
      * Computes metrics from daily closes.
      * Closes must be chronological (oldest → newest).
+     * Return, volatility and drawdown come from the ticker's MetricsState, which
+     * is only advanced over bars it has not seen yet; everything else only reads
+     * the last `lookback` bars. So a refresh costs O(1) per ticker when no bar
+     * was added (the previous metrics are returned as is) and O(max horizon +
+     * rolling window) when one was, whatever the length of the history. Only a
+     * changed history (or a state older than the lookback) rescans it all.
+     * The returned metrics may be shared with earlier calls and must not be modified.
      */
-    public StockMetrics compute(String ticker, List<Double> closes) {
-        StockMetrics m = new StockMetrics();
-        m.ticker = ticker;
-
+    public StockMetrics compute(String ticker, CloseSeries closes) {
         if (closes == null || closes.size() < 50) {
-            m.totalReturn = 0;
-            m.volatility = 1.0;
-            m.maxDrawdown = -1.0;
-            m.stabilityScore = 0;
-            m.finalScore = 0;
-            return m;
+            return badMetrics(ticker);
         }
 
-        double start = closes.get(0);
-        double end = closes.get(closes.size() - 1);
-        m.totalReturn = (end / start) - 1.0;
+        String key = ticker.trim().toUpperCase();
+        CloseSeries recent = closes.tail(lookback);
 
-        List<Double> dailyReturns = new ArrayList<>();
-        for (int i = 1; i < closes.size(); i++) {
-            double prev = closes.get(i - 1);
-            double cur = closes.get(i);
-            if (prev > 0 && cur > 0) {
-                dailyReturns.add((cur / prev) - 1.0);
-            }
-        }
+        // Store I/O happens outside any map lock. Two refreshes racing on one ticker
+        // both compute from the same closes; whichever is put last is equally valid.
+        Tracked prev = tracked.get(key);
+        MetricsState base = prev != null ? prev.state() : stateStore.read(key);
+        MetricsState state = base != null ? base.advance(recent) : null;
+        if (prev != null && state == prev.state()) return prev.metrics();
+        if (state == null) state = MetricsState.of(closes);
+        if (state != base) stateStore.write(key, state);
+
+        StockMetrics m = new StockMetrics();
+        m.ticker = ticker;
 
-        m.volatility = stdDev(dailyReturns);
-        m.maxDrawdown = computeMaxDrawdown(closes);
+        m.totalReturn = state.totalReturn();
+        m.volatility = state.volatility();
+        m.maxDrawdown = state.maxDrawdown();
+        m.momentum = momentum(recent);
+        applyWindows(m, recent);
 
         double volPenalty = Math.max(m.volatility, 0.0001);
         double ddPenalty = Math.abs(m.maxDrawdown);
         m.stabilityScore = 1.0 / (volPenalty + ddPenalty + 0.01);
 
         m.finalScore = 0; // set later by FreeAiStockPortfolioService
+        tracked.put(key, new Tracked(state, m));
         return m;
     }
 
-    private double stdDev(List<Double> vals) {
-        if (vals == null || vals.isEmpty()) return 0;
-
-        double mean = vals.stream().mapToDouble(v -> v).average().orElse(0);
-        double sumSq = 0;
+    @PreDestroy
+    public void shutdown() {
+        fetchPool.shutdownNow();
+    }
 
-        for (double v : vals) {
-            double diff = v - mean;
-            sumSq += diff * diff;
-        }
-        return Math.sqrt(sumSq / vals.size());
+    // "bad" metrics used when a ticker has no usable data
+    private StockMetrics badMetrics(String ticker) {
+        StockMetrics m = new StockMetrics();
+        m.ticker = ticker;
+        m.totalReturn = 0;
+        m.volatility = 1.0;
+        m.maxDrawdown = -1.0;
+        m.momentum = -1.0;
+        m.rollingVolatility = 1.0;
+        m.maxRollingVolatility = 1.0;
+        m.rollingDrawdown = -1.0;
+        m.worstRollingDrawdown = -1.0;
+        m.stabilityScore = 0;
+        m.finalScore = 0;
+        return m;
     }
 
-    private double computeMaxDrawdown(List<Double> closes) {
-        double peak = closes.get(0);
-        double maxDd = 0;
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
 
-        for (double c : closes) {
-            if (c > peak) peak = c;
-            double dd = (c / peak) - 1.0;
-            if (dd < maxDd) maxDd = dd;
+    private void applyWindows(StockMetrics m, CloseSeries closes) {
+        WindowMetrics.Result w = WindowMetrics.compute(closes, horizonDays, rollingWindow);
+
+        Map<String, HorizonMetrics> horizons = new LinkedHashMap<>();
+        for (int k = 0; k < horizonNames.length; k++) {
+            HorizonMetrics h = new HorizonMetrics();
+            h.days = horizonDays[k];
+            h.complete = w.complete[k];
+            h.totalReturn = w.totalReturn[k];
+            h.volatility = w.volatility[k];
+            h.maxDrawdown = w.maxDrawdown[k];
+            h.stabilityScore = 1.0 / (Math.max(h.volatility, 0.0001) + Math.abs(h.maxDrawdown) + 0.01);
+            horizons.put(horizonNames[k], h);
         }
-        return maxDd;
+        m.horizons = horizons;
+
+        double maxVol = 0, worstDd = 0;
+        for (double v : w.rollingVolatility) if (v > maxVol) maxVol = v; // NaN compares false
+        for (double d : w.rollingDrawdown) worstDd = Math.min(worstDd, d);
+        int lastIdx = w.rollingVolatility.length - 1;
+        m.rollingVolatility = Double.isNaN(w.rollingVolatility[lastIdx]) ? 0 : w.rollingVolatility[lastIdx];
+        m.maxRollingVolatility = maxVol;
+        m.rollingDrawdown = w.rollingDrawdown[lastIdx];
+        m.worstRollingDrawdown = worstDd;
+    }
+
+    // 12-1 month momentum: return from ~12 months ago to ~1 month ago (shorter history: from the start)
+    private double momentum(CloseSeries closes) {
+        int last = closes.size() - 1 - MOMENTUM_SKIP;
+        if (last < 1) return 0;
+        int first = Math.max(0, last - MOMENTUM_LOOKBACK);
+        return closes.close(last) / closes.close(first) - 1.0;
     }
 }
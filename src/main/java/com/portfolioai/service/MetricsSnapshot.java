@@ -0,0 +1,59 @@
+package com.portfolioai.service;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.portfolioai.model.StockMetrics;
+
+/**
+ * Immutable, versioned view of the universe metrics.
+ * Metrics are raw (not normalized) and also laid out column-wise in a
+ * MetricsTable, which is what scoring reads. The StockMetrics inside are
+ * shared across requests and must be treated as read-only.
+ */
+public final class MetricsSnapshot {
+
+    private final long version;
+    private final Instant builtAt;
+    private final List<StockMetrics> metrics;
+    private final MetricsTable table;
+
+    MetricsSnapshot(long version, Instant builtAt, List<StockMetrics> metrics) {
+        this.version = version;
+        this.builtAt = builtAt;
+        this.metrics = List.copyOf(metrics);
+        this.table = new MetricsTable(this.metrics);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /** Metrics in universe order (read-only). */
+    public List<StockMetrics> getMetrics() {
+        return metrics;
+    }
+
+    /** Same metrics, one array per column (same row order). */
+    public MetricsTable table() {
+        return table;
+    }
+
+    public int size() {
+        return metrics.size();
+    }
+
+    /** Normalized (trimmed, upper-case) ticker at position i; "" if missing. */
+    public String ticker(int i) {
+        return table.ticker(i);
+    }
+
+    /** Position of the ticker's metrics, or -1. */
+    public int indexOf(String ticker) {
+        return table.indexOf(ticker);
+    }
+}
@@ -0,0 +1,114 @@
+package com.portfolioai.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.portfolioai.model.StockMetrics;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Holds the current MetricsSnapshot and rebuilds it in the background.
+ * Readers never see a half-built snapshot: a new one is swapped in atomically.
+ */
+@Service
+public class MetricsSnapshotService {
+
+    private final MetricsService metricsService;
+    private final PriceMatrixService priceMatrixService;
+    private final boolean warmOnStartup;
+
+    private final AtomicReference<MetricsSnapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final Object buildLock = new Object();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "metrics-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public MetricsSnapshotService(MetricsService metricsService,
+                                  PriceMatrixService priceMatrixService,
+                                  @Value("${metrics.snapshot.warm-on-startup:true}") boolean warmOnStartup) {
+        this.metricsService = metricsService;
+        this.priceMatrixService = priceMatrixService;
+        this.warmOnStartup = warmOnStartup;
+    }
+
+    /**
+     * Returns the current snapshot. Only the very first caller(s) block,
+     * and they all wait on the same build.
+     */
+    public MetricsSnapshot current() {
+        MetricsSnapshot snap = current.get();
+        if (snap != null) return snap;
+
+        synchronized (buildLock) {
+            snap = current.get();
+            if (snap != null) return snap;
+            snap = buildSnapshot();
+        }
+        priceMatrixService.rebuild();
+        return snap;
+    }
+
+    /**
+     * Builds a fresh snapshot and swaps it in, then re-maps the price matrix.
+     * The matrix is rebuilt after buildLock is released (it swaps in its own
+     * file atomically), so first readers get the snapshot without waiting for it.
+     */
+    public MetricsSnapshot rebuild() {
+        MetricsSnapshot snap;
+        synchronized (buildLock) {
+            snap = buildSnapshot();
+        }
+        // the fetch brought the price store up to date; re-map the universe matrix from it
+        priceMatrixService.rebuild();
+        return snap;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmOnStartup) refreshInBackground();
+    }
+
+    // Daily bars land after the US close, so rebuild once each weekday evening
+    @Scheduled(cron = "${metrics.snapshot.refresh-cron:0 30 18 * * MON-FRI}", zone = "America/New_York")
+    public void refreshInBackground() {
+        refresher.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                System.out.println("WARN: Metrics snapshot rebuild failed: " + e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    // ---- helpers ----
+
+    // caller holds buildLock
+    private MetricsSnapshot buildSnapshot() {
+        // raw metrics; ScoringPipeline normalizes its own columns
+        List<StockMetrics> all = metricsService.computeAllMetrics();
+
+        MetricsSnapshot snap = new MetricsSnapshot(versions.incrementAndGet(), Instant.now(), all);
+        current.set(snap);
+        return snap;
+    }
+}
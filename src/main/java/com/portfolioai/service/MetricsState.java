@@ -0,0 +1,130 @@
+package com.portfolioai.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Running per-ticker statistics over a close series: first/last close,
+ * Welford mean and M2 of daily returns, running peak and max drawdown.
+ * Appending one bar is O(1), so a daily refresh only touches the new bars.
+ *
+ * Not thread-safe; instances held by MetricsService are never modified after
+ * they are published (advance() works on a copy).
+ */
+public final class MetricsState {
+
+    static final int BYTES = 3 * 4 + 8 + 6 * 8;
+
+    int firstDay;
+    int lastDay;
+    int points;
+    long returns;
+    double firstClose;
+    double lastClose;
+    double mean;
+    double m2;
+    double peak;
+    double maxDrawdown;
+
+    private MetricsState() {
+    }
+
+    /** Full build from a series (closes must be > 0, chronological). */
+    public static MetricsState of(CloseSeries closes) {
+        MetricsState s = new MetricsState();
+        if (closes.isEmpty()) return s;
+        s.firstDay = closes.day(0);
+        s.firstClose = closes.firstClose();
+        s.lastDay = closes.day(0);
+        s.lastClose = closes.firstClose();
+        s.peak = closes.firstClose();
+        s.points = 1;
+        for (int i = 1; i < closes.size(); i++) s.append(closes.day(i), closes.close(i));
+        return s;
+    }
+
+    /**
+     * State extended with the bars of `closes` after lastDay, or null if the
+     * series no longer matches this state (different start, or the last seen
+     * bar changed or is not in `closes`), in which case the caller must rebuild
+     * with of(). `closes` may be just a recent tail of the series, as long as it
+     * still holds lastDay; only the bars from there on are read.
+     * Returns this when there is nothing new.
+     */
+    public MetricsState advance(CloseSeries closes) {
+        if (points == 0 || closes.isEmpty()) return null;
+        if (closes.day(0) <= firstDay && (closes.day(0) != firstDay || closes.firstClose() != firstClose)) {
+            return null; // the full series, but it starts elsewhere now
+        }
+
+        int at = closes.indexOfDay(lastDay);
+        if (at < 0 || closes.close(at) != lastClose) return null;
+        if (at == closes.size() - 1) return this;
+
+        MetricsState s = copy();
+        for (int i = at + 1; i < closes.size(); i++) s.append(closes.day(i), closes.close(i));
+        return s;
+    }
+
+    private void append(int day, double close) {
+        double r = close / lastClose - 1.0;
+        returns++;
+        double delta = r - mean;
+        mean += delta / returns;
+        m2 += delta * (r - mean);
+
+        if (close > peak) peak = close;
+        double dd = close / peak - 1.0;
+        if (dd < maxDrawdown) maxDrawdown = dd;
+
+        lastDay = day;
+        lastClose = close;
+        points++;
+    }
+
+    public int points() { return points; }
+    public int lastDay() { return lastDay; }
+    public double totalReturn() { return lastClose / firstClose - 1.0; }
+    public double maxDrawdown() { return maxDrawdown; }
+
+    /** Population std dev of daily returns. */
+    public double volatility() {
+        return returns == 0 ? 0 : Math.sqrt(m2 / returns);
+    }
+
+    void writeTo(ByteBuffer buf) {
+        buf.putInt(firstDay).putInt(lastDay).putInt(points).putLong(returns)
+                .putDouble(firstClose).putDouble(lastClose)
+                .putDouble(mean).putDouble(m2)
+                .putDouble(peak).putDouble(maxDrawdown);
+    }
+
+    static MetricsState readFrom(ByteBuffer buf) {
+        MetricsState s = new MetricsState();
+        s.firstDay = buf.getInt();
+        s.lastDay = buf.getInt();
+        s.points = buf.getInt();
+        s.returns = buf.getLong();
+        s.firstClose = buf.getDouble();
+        s.lastClose = buf.getDouble();
+        s.mean = buf.getDouble();
+        s.m2 = buf.getDouble();
+        s.peak = buf.getDouble();
+        s.maxDrawdown = buf.getDouble();
+        return s;
+    }
+
+    private MetricsState copy() {
+        MetricsState s = new MetricsState();
+        s.firstDay = firstDay;
+        s.lastDay = lastDay;
+        s.points = points;
+        s.returns = returns;
+        s.firstClose = firstClose;
+        s.lastClose = lastClose;
+        s.mean = mean;
+        s.m2 = m2;
+        s.peak = peak;
+        s.maxDrawdown = maxDrawdown;
+        return s;
+    }
+}
@@ -0,0 +1,79 @@
+package com.portfolioai.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Persists MetricsState next to the price files: `<TICKER>.mx` under
+ * marketdata.store.dir.
+ *
+ * File layout (little endian): int magic, int version, then one state record.
+ * Written to a temp file and moved into place, so a reader sees either the old
+ * or the new state, never a mix.
+ */
+@Service
+public class MetricsStateStore {
+
+    private static final int MAGIC = 0x4D585331; // "MXS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+
+    private final Path dir;
+    private final boolean enabled;
+
+    public MetricsStateStore(@Value("${marketdata.store.dir:data/prices}") String dir,
+                             @Value("${marketdata.store.enabled:true}") boolean enabled) {
+        this.dir = Paths.get(dir);
+        this.enabled = enabled;
+    }
+
+    /** Stored state, or null if there is none (or it is unreadable). */
+    public MetricsState read(String tickerUpper) {
+        if (!enabled) return null;
+        Path file = fileFor(tickerUpper);
+        if (!Files.exists(file)) return null;
+
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            if (bytes.length != HEADER_BYTES + MetricsState.BYTES) return null;
+
+            ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) return null;
+            return MetricsState.readFrom(buf);
+        } catch (IOException e) {
+            System.out.println("WARN: Failed to read metrics state for " + tickerUpper + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void write(String tickerUpper, MetricsState state) {
+        if (!enabled) return;
+        Path file = fileFor(tickerUpper);
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + MetricsState.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION);
+        state.writeTo(buf);
+
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            Files.write(tmp, buf.array());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("WARN: Failed to write metrics state for " + tickerUpper + ": " + e.getMessage());
+        }
+    }
+
+    private Path fileFor(String tickerUpper) {
+        String safe = tickerUpper.replaceAll("[^A-Z0-9._-]", "_");
+        return dir.resolve(safe + ".mx");
+    }
+}
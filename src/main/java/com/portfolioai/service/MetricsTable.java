@@ -0,0 +1,129 @@
+package com.portfolioai.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.portfolioai.model.HorizonMetrics;
+import com.portfolioai.model.StockMetrics;
+
+/**
+ * Column-oriented copy of the universe metrics: one double[] per metric (and
+ * per trailing horizon) plus an interned ticker index. Built once per
+ * snapshot so scoring, normalization and ranking run as plain array loops
+ * instead of walking StockMetrics objects. Read-only after construction.
+ *
+ * Each horizon also records which rows have a complete window (at least that
+ * much history). A horizon that no row covers completely is dropped, so it
+ * reads as lifetime values with every row complete.
+ */
+public final class MetricsTable {
+
+    public enum Column {
+        RETURN,
+        VOLATILITY,
+        DRAWDOWN,
+        MOMENTUM,
+        STABILITY
+    }
+
+    private static final Column[] COLUMNS = Column.values();
+
+    private final int size;
+    private final String[] tickers;                 // interned, trimmed, upper-case; "" if missing
+    private final Map<String, Integer> index;       // ticker -> first row
+    private final double[][] lifetime;              // [column][row]
+    private final Map<String, double[][]> horizons; // horizon -> [column][row]
+    private final Map<String, boolean[]> complete;  // horizon -> row has the full window
+    private final boolean[] allRows;
+
+    MetricsTable(List<StockMetrics> metrics) {
+        this.size = metrics.size();
+        this.tickers = new String[size];
+        this.index = new HashMap<>(size * 2);
+        this.lifetime = new double[COLUMNS.length][size];
+
+        Map<String, double[][]> byHorizon = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            StockMetrics m = metrics.get(i);
+            tickers[i] = m.ticker == null ? "" : m.ticker.trim().toUpperCase().intern();
+            if (!tickers[i].isEmpty()) index.putIfAbsent(tickers[i], i);
+
+            lifetime[Column.RETURN.ordinal()][i] = m.totalReturn;
+            lifetime[Column.VOLATILITY.ordinal()][i] = m.volatility;
+            lifetime[Column.DRAWDOWN.ordinal()][i] = m.maxDrawdown;
+            lifetime[Column.MOMENTUM.ordinal()][i] = m.momentum;
+            lifetime[Column.STABILITY.ordinal()][i] = m.stabilityScore;
+
+            for (String h : m.horizons.keySet()) byHorizon.computeIfAbsent(h, k -> new double[COLUMNS.length][]);
+        }
+
+        // rows without a given horizon (e.g. "bad" metrics) fall back to their lifetime values
+        // and, like rows with a short history, are marked incomplete
+        Map<String, boolean[]> byHorizonComplete = new HashMap<>();
+        for (var it = byHorizon.entrySet().iterator(); it.hasNext(); ) {
+            var e = it.next();
+            double[][] cols = e.getValue();
+            boolean[] full = new boolean[size];
+            boolean any = false;
+            for (Column c : COLUMNS) cols[c.ordinal()] = lifetime[c.ordinal()].clone();
+            for (int i = 0; i < size; i++) {
+                HorizonMetrics h = metrics.get(i).horizons.get(e.getKey());
+                if (h == null) continue;
+                cols[Column.RETURN.ordinal()][i] = h.totalReturn;
+                cols[Column.VOLATILITY.ordinal()][i] = h.volatility;
+                cols[Column.DRAWDOWN.ordinal()][i] = h.maxDrawdown;
+                cols[Column.STABILITY.ordinal()][i] = h.stabilityScore;
+                full[i] = h.complete;
+                any |= h.complete;
+            }
+            if (any) byHorizonComplete.put(e.getKey(), full);
+            else it.remove();
+        }
+        this.horizons = Collections.unmodifiableMap(byHorizon);
+        this.complete = Collections.unmodifiableMap(byHorizonComplete);
+        this.allRows = new boolean[size];
+        Arrays.fill(allRows, true);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Interned ticker at row i; "" if missing. */
+    public String ticker(int i) {
+        return tickers[i];
+    }
+
+    /** Row of the ticker, or -1. */
+    public int indexOf(String ticker) {
+        if (ticker == null) return -1;
+        Integer i = index.get(ticker.trim().toUpperCase());
+        return i == null ? -1 : i;
+    }
+
+    /** True if some row has a complete window for the horizon (else it was dropped). */
+    public boolean hasHorizon(String horizon) {
+        return horizon != null && complete.containsKey(horizon);
+    }
+
+    /**
+     * Values of one metric for every row, from the given trailing horizon
+     * (null = lifetime; momentum is always lifetime). Shared: do not modify.
+     */
+    public double[] column(Column column, String horizon) {
+        double[][] cols = horizon == null ? null : horizons.get(horizon);
+        return (cols != null ? cols : lifetime)[column.ordinal()];
+    }
+
+    /**
+     * Rows whose window for the horizon is complete; every row for lifetime
+     * values or a dropped horizon. Shared: do not modify.
+     */
+    public boolean[] complete(String horizon) {
+        boolean[] rows = horizon == null ? null : complete.get(horizon);
+        return rows != null ? rows : allRows;
+    }
+}
@@ -0,0 +1,190 @@
+package com.portfolioai.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Simulates wealth paths of a constant-mix portfolio (rebalanced to its
+ * weights every period) and summarises terminal wealth and drawdowns.
+ *
+ * Because the mix is constant, each period only needs the portfolio return:
+ * GAUSSIAN draws it from N(w'mu, w'Σw), which is exactly w'(mu + Lz) for the
+ * Cholesky factor L of Σ without paying O(n^2) per step; BOOTSTRAP resamples
+ * whole historical days, so cross-asset correlation and fat tails are kept.
+ *
+ * Paths are split into fixed-size chunks, each with its own SplittableRandom
+ * split from the seed in chunk order, so results depend only on the seed and
+ * not on the number of cores. Chunks run on Options.pool (the common pool if
+ * unset).
+ */
+public final class MonteCarloEngine {
+
+    private static final int CHUNK = 2048;
+    private static final double[] PERCENTILES = {0.05, 0.25, 0.50, 0.75, 0.95};
+
+    public enum Method {
+        GAUSSIAN,
+        BOOTSTRAP;
+
+        /** Null or blank = GAUSSIAN; unknown names are rejected (400 from /simulate). */
+        public static Method parse(String s) {
+            if (s == null || s.isBlank()) return GAUSSIAN;
+            return switch (s.trim().toLowerCase()) {
+                case "gaussian", "normal" -> GAUSSIAN;
+                case "bootstrap", "historical" -> BOOTSTRAP;
+                default -> throw new IllegalArgumentException("Unknown simulation method: " + s + " (gaussian, bootstrap)");
+            };
+        }
+    }
+
+    public static final class Options {
+        public Method method = Method.GAUSSIAN;
+        public int paths = 100_000;
+        public int horizonDays = 252;
+        public long seed = 42;
+        public double[] drawdownLevels = {0.10, 0.20, 0.30, 0.50};
+        public ForkJoinPool pool;
+    }
+
+    public static final class Result {
+        public final int paths;
+        public final int horizonDays;
+        public final double[] percentiles;          // PERCENTILES levels
+        public final double[] terminalWealth;       // at those levels, starting from 1
+        public final double meanTerminalWealth;
+        public final double probabilityOfLoss;      // P(terminal wealth < 1)
+        public final double[] maxDrawdown;          // at the same levels, as positive fractions
+        public final double[] drawdownLevels;
+        public final double[] drawdownProbability;  // P(max drawdown >= level)
+        public final long elapsedNanos;
+
+        Result(int paths, int horizonDays, double[] terminalWealth, double meanTerminalWealth,
+               double probabilityOfLoss, double[] maxDrawdown, double[] drawdownLevels,
+               double[] drawdownProbability, long elapsedNanos) {
+            this.paths = paths;
+            this.horizonDays = horizonDays;
+            this.percentiles = PERCENTILES.clone();
+            this.terminalWealth = terminalWealth;
+            this.meanTerminalWealth = meanTerminalWealth;
+            this.probabilityOfLoss = probabilityOfLoss;
+            this.maxDrawdown = maxDrawdown;
+            this.drawdownLevels = drawdownLevels;
+            this.drawdownProbability = drawdownProbability;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public double pathsPerSecond() {
+            return elapsedNanos > 0 ? paths * 1e9 / elapsedNanos : 0;
+        }
+    }
+
+    private MonteCarloEngine() {
+    }
+
+    /**
+     * @param weights  portfolio weights aligned with mu / risk / returns rows (normalised to sum to 1)
+     * @param returns  historical returns; required for BOOTSTRAP, unused for GAUSSIAN
+     */
+    public static Result simulate(double[] mu, RiskModel risk, ReturnsMatrix returns,
+                                  double[] weights, Options options) {
+        int n = mu.length;
+        if (weights.length != n || risk.size() != n) {
+            throw new IllegalArgumentException("weights, mu and cov must have the same size");
+        }
+        int paths = Math.max(1, options.paths);
+        int horizon = Math.max(1, options.horizonDays);
+
+        double[] w = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            if (!(weights[i] >= 0)) throw new IllegalArgumentException("weights must be non-negative");
+            total += weights[i];
+        }
+        if (total <= 0) throw new IllegalArgumentException("weights must not all be zero");
+        for (int i = 0; i < n; i++) w[i] = weights[i] / total;
+
+        // per-period portfolio inputs
+        double mean = 0;
+        for (int i = 0; i < n; i++) mean += w[i] * mu[i];
+        double sd = Math.sqrt(Math.max(0, risk.variance(w)));
+
+        double[] history = null;
+        if (options.method == Method.BOOTSTRAP) {
+            if (returns == null || returns.periods() == 0) {
+                throw new IllegalArgumentException("bootstrap needs historical returns");
+            }
+            int len = returns.periods();
+            double[] data = returns.data();
+            history = new double[len];
+            for (int i = 0; i < n; i++) {
+                int off = returns.offset(i);
+                for (int t = 0; t < len; t++) history[t] += w[i] * data[off + t];
+            }
+        }
+
+        long start = System.nanoTime();
+
+        int chunks = (paths + CHUNK - 1) / CHUNK;
+        SplittableRandom root = new SplittableRandom(options.seed);
+        SplittableRandom[] rngs = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) rngs[c] = root.split();
+
+        double[] terminal = new double[paths];
+        double[] drawdown = new double[paths];
+        double mu0 = mean, sd0 = sd;
+        double[] hist = history;
+
+        ForkJoinPool pool = options.pool != null ? options.pool : ForkJoinPool.commonPool();
+        // a parallel stream started from inside a pool's task runs on that pool
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+            SplittableRandom rng = rngs[c];
+            for (int p = c * CHUNK; p < Math.min(paths, (c + 1) * CHUNK); p++) {
+                double wealth = 1, peak = 1, maxDd = 0;
+                for (int t = 0; t < horizon; t++) {
+                    double r = hist != null
+                            ? hist[rng.nextInt(hist.length)]
+                            : mu0 + sd0 * rng.nextGaussian();
+                    wealth *= Math.max(0, 1 + r);
+                    if (wealth > peak) peak = wealth;
+                    else maxDd = Math.max(maxDd, 1 - wealth / peak);
+                }
+                terminal[p] = wealth;
+                drawdown[p] = maxDd;
+            }
+        })).join();
+
+        double sum = 0;
+        int losses = 0;
+        for (double v : terminal) {
+            sum += v;
+            if (v < 1) losses++;
+        }
+
+        double[] levels = options.drawdownLevels.clone();
+        double[] ddProb = new double[levels.length];
+        for (double d : drawdown) {
+            for (int k = 0; k < levels.length; k++) if (d >= levels[k]) ddProb[k]++;
+        }
+        for (int k = 0; k < levels.length; k++) ddProb[k] /= paths;
+
+        Arrays.sort(terminal);
+        Arrays.sort(drawdown);
+        long elapsed = System.nanoTime() - start;
+
+        return new Result(paths, horizon,
+                percentiles(terminal), sum / paths, (double) losses / paths,
+                percentiles(drawdown), levels, ddProb, elapsed);
+    }
+
+    // nearest-rank percentiles of a sorted array
+    private static double[] percentiles(double[] sorted) {
+        double[] out = new double[PERCENTILES.length];
+        for (int k = 0; k < PERCENTILES.length; k++) {
+            int idx = (int) Math.ceil(PERCENTILES[k] * sorted.length) - 1;
+            out[k] = sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+        }
+        return out;
+    }
+}
@@ -0,0 +1,155 @@
+package com.portfolioai.service;
+
+import com.portfolioai.model.PortfolioRequest;
+import com.portfolioai.model.SimulationRequest;
+import com.portfolioai.model.SimulationResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs simulations on its own ForkJoinPool (simulation.threads), at most
+ * simulation.max-concurrent at a time, with paths x horizon capped per
+ * request, so the public endpoint cannot tie up the common pool. A request
+ * that finds every slot busy is rejected (503).
+ */
+@Service
+public class MonteCarloService {
+
+    private static final int YEARS_BACK = 3;
+
+    private final MarketDataService marketDataService;
+    private final PortfolioService portfolioService;
+    private final int defaultPaths;
+    private final int maxPaths;
+    private final int defaultHorizonDays;
+    private final int maxHorizonDays;
+    private final long maxDraws;
+
+    private final ForkJoinPool pool;
+    private final Semaphore slots;
+    private final long slotWaitMillis;
+
+    public MonteCarloService(MarketDataService marketDataService,
+                             PortfolioService portfolioService,
+                             @Value("${simulation.default-paths:100000}") int defaultPaths,
+                             @Value("${simulation.max-paths:200000}") int maxPaths,
+                             @Value("${simulation.default-horizon-days:252}") int defaultHorizonDays,
+                             @Value("${simulation.max-horizon-days:7560}") int maxHorizonDays,
+                             @Value("${simulation.max-draws:50000000}") long maxDraws,
+                             @Value("${simulation.threads:0}") int threads,
+                             @Value("${simulation.max-concurrent:2}") int maxConcurrent,
+                             @Value("${simulation.slot-wait-ms:2000}") long slotWaitMillis) {
+        this.marketDataService = marketDataService;
+        this.portfolioService = portfolioService;
+        this.defaultPaths = defaultPaths;
+        this.maxPaths = maxPaths;
+        this.defaultHorizonDays = defaultHorizonDays;
+        this.maxHorizonDays = maxHorizonDays;
+        this.maxDraws = maxDraws;
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads > 0 ? threads : Math.max(1, cores / 2));
+        this.slots = new Semaphore(Math.max(1, maxConcurrent));
+        this.slotWaitMillis = slotWaitMillis;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Simulates the requested weights, or the portfolio PortfolioService builds
+     * from the quiz answers, using mu / Σ / history from MarketDataService.
+     * The same seed always gives the same result.
+     */
+    public SimulationResponse simulate(SimulationRequest req) throws Exception {
+        Map<String, Double> weights = req.getWeights();
+        if (weights == null || weights.isEmpty()) {
+            if (req.getAnswers() == null) throw new IllegalArgumentException("weights or answers are required");
+            PortfolioRequest pr = new PortfolioRequest();
+            pr.setAnswers(req.getAnswers());
+            pr.setOptimizer(req.getOptimizer());
+            weights = portfolioService.generate(pr).assets;
+        }
+
+        List<String> assets = new ArrayList<>();
+        List<Double> targets = new ArrayList<>();
+        for (Map.Entry<String, Double> e : weights.entrySet()) {
+            Double w = e.getValue();
+            if (e.getKey() == null || w == null || w == 0) continue;
+            if (!(w > 0)) throw new IllegalArgumentException("Negative weight for " + e.getKey());
+            assets.add(e.getKey().trim().toUpperCase());
+            targets.add(w);
+        }
+        if (assets.isEmpty()) throw new IllegalArgumentException("weights must contain at least one positive entry");
+
+        MarketDataService.ReturnStats stats = marketDataService.loadReturns(assets, YEARS_BACK);
+
+        double[] w = new double[assets.size()];
+        for (int i = 0; i < w.length; i++) w[i] = targets.get(i);
+
+        MonteCarloEngine.Options options = new MonteCarloEngine.Options();
+        options.method = MonteCarloEngine.Method.parse(req.getMethod());
+        options.paths = clamp(req.getPaths(), defaultPaths, maxPaths);
+        options.horizonDays = clamp(req.getHorizonDays(), defaultHorizonDays, maxHorizonDays);
+        if ((long) options.paths * options.horizonDays > maxDraws) {
+            throw new IllegalArgumentException("paths x horizon_days must be at most " + maxDraws);
+        }
+        if (req.getSeed() != null) options.seed = req.getSeed();
+        options.pool = pool;
+
+        if (!slots.tryAcquire(slotWaitMillis, TimeUnit.MILLISECONDS)) {
+            throw new RejectedExecutionException("All simulation slots are busy");
+        }
+        MonteCarloEngine.Result res;
+        try {
+            res = MonteCarloEngine.simulate(stats.mu, stats.riskModel, stats.returns, w, options);
+        } finally {
+            slots.release();
+        }
+
+        SimulationResponse out = new SimulationResponse();
+        out.weights = new LinkedHashMap<>();
+        for (int i = 0; i < assets.size(); i++) out.weights.put(assets.get(i), targets.get(i));
+        out.method = options.method.name().toLowerCase();
+        out.paths = res.paths;
+        out.horizon_days = res.horizonDays;
+        out.seed = options.seed;
+        out.terminal_wealth = byPercentile(res.percentiles, res.terminalWealth);
+        out.mean_terminal_wealth = res.meanTerminalWealth;
+        out.probability_of_loss = res.probabilityOfLoss;
+        out.max_drawdown = byPercentile(res.percentiles, res.maxDrawdown);
+        out.drawdown_probability = new LinkedHashMap<>();
+        for (int k = 0; k < res.drawdownLevels.length; k++) {
+            out.drawdown_probability.put(String.format(">=%.0f%%", res.drawdownLevels[k] * 100), res.drawdownProbability[k]);
+        }
+        out.elapsed_ms = res.elapsedNanos / 1e6;
+        out.paths_per_sec = res.pathsPerSecond();
+        return out;
+    }
+
+    // ---- helpers ----
+
+    private static int clamp(Integer requested, int def, int max) {
+        if (requested == null || requested <= 0) return def;
+        return Math.min(requested, max);
+    }
+
+    private static Map<String, Double> byPercentile(double[] levels, double[] values) {
+        Map<String, Double> out = new LinkedHashMap<>();
+        for (int k = 0; k < levels.length; k++) out.put("p" + Math.round(levels[k] * 100), values[k]);
+        return out;
+    }
+}
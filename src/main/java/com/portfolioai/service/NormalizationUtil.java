@@ -1,31 +1,100 @@
 package com.portfolioai.service;
 
-import java.util.List;
+import java.util.Arrays;
 
-import com.portfolioai.model.StockMetrics;
+/**
+ * Cross-sectional normalizers over primitive columns. Inputs are never
+ * modified; every call returns a new array.
+ */
+public final class NormalizationUtil {
 
-public class NormalizationUtil {
+    public enum Method {
+        /** (v - min) / (max - min); 0.5 everywhere if the column is constant. */
+        MIN_MAX,
+        /** (v - mean) / stddev; 0 everywhere if the column is constant. */
+        Z_SCORE,
+        /** Rank scaled to [0, 1]; ties share their average rank. */
+        RANK;
 
-    public static void normalizeReturns(List<StockMetrics> metrics) {
-        double min = metrics.stream().mapToDouble(m -> m.totalReturn).min().orElse(0);
-        double max = metrics.stream().mapToDouble(m -> m.totalReturn).max().orElse(1);
+        public double[] apply(double[] values) {
+            return switch (this) {
+                case MIN_MAX -> minMax(values);
+                case Z_SCORE -> zScore(values);
+                case RANK -> rank(values);
+            };
+        }
+
+        /** Null or blank = MIN_MAX; anything unrecognised is rejected rather than silently defaulted. */
+        public static Method parse(String s) {
+            if (s == null || s.isBlank()) return MIN_MAX;
+            return switch (s.trim().toLowerCase().replace('-', '_')) {
+                case "min_max", "minmax" -> MIN_MAX;
+                case "z_score", "zscore" -> Z_SCORE;
+                case "rank" -> RANK;
+                default -> throw new IllegalArgumentException("Unknown normalizer: " + s + " (min_max, z_score, rank)");
+            };
+        }
+    }
+
+    private NormalizationUtil() {
+    }
 
-        for (StockMetrics m : metrics) {
-            m.totalReturn = normalize(m.totalReturn, min, max);
+    public static double[] minMax(double[] values) {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (double v : values) {
+            if (v < min) min = v;
+            if (v > max) max = v;
         }
+        double[] out = new double[values.length];
+        double range = max - min;
+        for (int i = 0; i < out.length; i++) out[i] = range == 0 ? 0.5 : (values[i] - min) / range;
+        return out;
     }
 
-    public static void normalizeStability(List<StockMetrics> metrics) {
-        double min = metrics.stream().mapToDouble(m -> m.stabilityScore).min().orElse(0);
-        double max = metrics.stream().mapToDouble(m -> m.stabilityScore).max().orElse(1);
+    public static double[] zScore(double[] values) {
+        int n = values.length;
+        double[] out = new double[n];
+        if (n == 0) return out;
 
-        for (StockMetrics m : metrics) {
-            m.stabilityScore = normalize(m.stabilityScore, min, max);
+        double mean = 0;
+        for (double v : values) mean += v;
+        mean /= n;
+        double var = 0;
+        for (double v : values) var += (v - mean) * (v - mean);
+        double sd = Math.sqrt(var / n);
+
+        for (int i = 0; i < n; i++) out[i] = sd == 0 ? 0 : (values[i] - mean) / sd;
+        return out;
+    }
+
+    public static double[] rank(double[] values) {
+        int n = values.length;
+        double[] out = new double[n];
+        if (n < 2) {
+            if (n == 1) out[0] = 0.5;
+            return out;
         }
+
+        // average rank of each value = middle of its run in a sorted copy (no boxing)
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < n; i++) {
+            int lo = bound(sorted, values[i], false);
+            int hi = bound(sorted, values[i], true) - 1;
+            out[i] = (lo + hi) / 2.0 / (n - 1);
+        }
+        return out;
     }
 
-    private static double normalize(double v, double min, double max) {
-        if (max - min == 0) return 0.5;
-        return (v - min) / (max - min);
+    // first index whose value is >= v (or > v when `upper`), using Arrays.sort's ordering
+    private static int bound(double[] sorted, double v, boolean upper) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = Double.compare(sorted[mid], v);
+            if (c < 0 || (upper && c == 0)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
     }
 }
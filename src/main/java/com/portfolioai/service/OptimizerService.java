@@ -1,12 +1,45 @@
 package com.portfolioai.service;
 
+import com.portfolioai.model.FrontierPoint;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 @Service
 public class OptimizerService {
 
+    // frontier risk-aversion grid, relative to max|mu| / mean variance
+    private static final double FRONTIER_LOW = 1e-1;
+    private static final double FRONTIER_HIGH = 1e2;
+
+    private final MeanVarianceSolver mvoSolver;
+    private final RiskParitySolver riskParitySolver;
+
+    // frontier chunks run here, not on the common pool the request handlers may share
+    private final ForkJoinPool frontierPool;
+
+    public OptimizerService(@Value("${optimizer.mvo.tolerance:1e-10}") double tolerance,
+                            @Value("${optimizer.mvo.max-iterations:10000}") int maxIterations,
+                            @Value("${optimizer.risk-parity.tolerance:1e-8}") double rpTolerance,
+                            @Value("${optimizer.risk-parity.max-iterations:100}") int rpMaxIterations,
+                            @Value("${optimizer.risk-parity.max-constrained-iterations:10000}") int rpMaxConstrained,
+                            @Value("${optimizer.frontier.threads:0}") int frontierThreads) {
+        this.mvoSolver = new MeanVarianceSolver(tolerance, maxIterations);
+        this.riskParitySolver = new RiskParitySolver(rpTolerance, rpMaxIterations, rpMaxConstrained);
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.frontierPool = new ForkJoinPool(frontierThreads > 0 ? frontierThreads : Math.max(1, cores / 2));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        frontierPool.shutdownNow();
+    }
+
     // Idea 3 v1 templates (fallback)
     public Map<String, Double> templatesForTier(String tier) {
         return switch (tier) {
@@ -20,119 +53,129 @@ public class OptimizerService {
     public Map<String, Double> mvoOptimize(List<String> assets,
                                           double[] mu,
                                           double[][] cov,
-                                          Map<String, Double> constraints) {
-
-        int n = assets.size();
-        double[] w = new double[n];
-        Arrays.fill(w, 1.0 / n);
-
-        double lr = 0.01;
-
-        for (int iter = 0; iter < 4000; iter++) {
-            double[] grad = new double[n];
-
-            for (int i = 0; i < n; i++) {
-                double riskPart = 0;
-                for (int j = 0; j < n; j++) riskPart += cov[i][j] * w[j];
-                grad[i] = 2 * riskPart - mu[i];
-            }
-
-            for (int i = 0; i < n; i++) {
-                w[i] -= lr * grad[i];
-                w[i] = Math.max(0, Math.min(1, w[i]));
-            }
-            normalize(w);
-
-            // equities = VOO + VXUS, bonds = BND (assumes ordering)
-            double eqWeight = w[0] + w[1];
-            double bondWeight = w[2];
+                                          ConstraintModel constraints) {
+        return mvoOptimize(assets, mu, new DenseRiskModel(cov), constraints);
+    }
 
-            if (constraints.containsKey("eq_min") && eqWeight < constraints.get("eq_min")) {
-                double deficit = constraints.get("eq_min") - eqWeight;
-                w[0] += deficit / 2; w[1] += deficit / 2; w[2] -= deficit;
-            }
-            if (constraints.containsKey("eq_max") && eqWeight > constraints.get("eq_max")) {
-                double excess = eqWeight - constraints.get("eq_max");
-                w[0] -= excess / 2; w[1] -= excess / 2; w[2] += excess;
-            }
-            if (constraints.containsKey("bond_min") && bondWeight < constraints.get("bond_min")) {
-                double deficit = constraints.get("bond_min") - bondWeight;
-                w[2] += deficit; w[0] -= deficit / 2; w[1] -= deficit / 2;
-            }
-            if (constraints.containsKey("bond_max") && bondWeight > constraints.get("bond_max")) {
-                double excess = bondWeight - constraints.get("bond_max");
-                w[2] -= excess; w[0] += excess / 2; w[1] += excess / 2;
-            }
+    /** Same, with Σ as a risk model (e.g. a factor model for a stock universe). */
+    public Map<String, Double> mvoOptimize(List<String> assets,
+                                          double[] mu,
+                                          RiskModel risk,
+                                          ConstraintModel constraints) {
 
-            for (int i = 0; i < n; i++) w[i] = Math.max(0, Math.min(1, w[i]));
-            normalize(w);
-        }
+        MeanVarianceSolver.Result res = mvoSolve(mu, risk, constraints);
 
         Map<String, Double> out = new LinkedHashMap<>();
-        for (int i = 0; i < n; i++) out.put(assets.get(i), w[i]);
+        for (int i = 0; i < assets.size(); i++) out.put(assets.get(i), res.weights[i]);
         return out;
     }
 
-    // Idea 3 v3 Risk Parity (equal risk contribution approx)
-    public Map<String, Double> riskParityOptimize(List<String> assets,
-                                                  double[][] cov,
-                                                  Map<String, Double> constraints) {
-        int n = assets.size();
-        double[] w = new double[n];
-        Arrays.fill(w, 1.0 / n);
-
-        double lr = 0.01;
+    /** MVO with diagnostics (iterations, residual, converged). */
+    public MeanVarianceSolver.Result mvoSolve(double[] mu, double[][] cov, ConstraintModel constraints) {
+        return mvoSolver.solve(mu, cov, 1.0, constraints);
+    }
 
-        for (int iter = 0; iter < 5000; iter++) {
-            double[] mrc = marginalRisk(cov, w); // Σw
-            double portVar = dot(w, mrc);
-            double[] rc = new double[n];
+    public MeanVarianceSolver.Result mvoSolve(double[] mu, RiskModel risk, ConstraintModel constraints) {
+        return mvoSolver.solve(mu, risk, 1.0, constraints, null);
+    }
 
-            for (int i = 0; i < n; i++) rc[i] = w[i] * mrc[i] / Math.sqrt(portVar);
+    /**
+     * Efficient frontier: `points` MVO solutions over a geometric grid of risk
+     * aversions, from near max-return to near min-variance.
+     *
+     * Σ is prepared once and shared by every point. The grid is split into one
+     * contiguous chunk per thread of the frontier pool (optimizer.frontier.threads);
+     * chunks run in parallel and each point inside a chunk warm-starts from its
+     * neighbour's solution. Returned in order of increasing volatility.
+     */
+    public List<FrontierPoint> efficientFrontier(List<String> assets,
+                                                 double[] mu,
+                                                 double[][] cov,
+                                                 ConstraintModel constraints,
+                                                 int points) {
+        return efficientFrontier(assets, mu, new DenseRiskModel(cov), constraints, points);
+    }
 
-            double target = Arrays.stream(rc).average().orElse(0);
-            double[] grad = new double[n];
-            for (int i = 0; i < n; i++) grad[i] = rc[i] - target;
+    public List<FrontierPoint> efficientFrontier(List<String> assets,
+                                                 double[] mu,
+                                                 RiskModel risk,
+                                                 ConstraintModel constraints,
+                                                 int points) {
+        int n = assets.size();
+        int count = Math.max(2, points);
+        MeanVarianceSolver.Problem problem = MeanVarianceSolver.prepare(mu, risk);
 
-            for (int i = 0; i < n; i++) {
-                w[i] -= lr * grad[i];
-                w[i] = Math.max(0, Math.min(1, w[i]));
-            }
-            normalize(w);
+        // natural scale where the return and risk terms are comparable
+        double maxMu = 0, avgVar = 0;
+        for (int i = 0; i < n; i++) {
+            maxMu = Math.max(maxMu, Math.abs(mu[i]));
+            avgVar += risk.variance(i) / n;
+        }
+        double scale = avgVar > 0 && maxMu > 0 ? maxMu / avgVar : 1.0;
+        double lo = scale * FRONTIER_LOW, hi = scale * FRONTIER_HIGH;
 
-            // apply same equity/bond constraints
-            double eqWeight = w[0] + w[1];
-            double bondWeight = w[2];
+        // high risk aversion first -> increasing volatility
+        double[] lambdas = new double[count];
+        for (int k = 0; k < count; k++) {
+            lambdas[k] = hi * Math.pow(lo / hi, (double) k / (count - 1));
+        }
 
-            if (constraints.containsKey("eq_min") && eqWeight < constraints.get("eq_min")) {
-                double deficit = constraints.get("eq_min") - eqWeight;
-                w[0] += deficit / 2; w[1] += deficit / 2; w[2] -= deficit;
-            }
-            if (constraints.containsKey("eq_max") && eqWeight > constraints.get("eq_max")) {
-                double excess = eqWeight - constraints.get("eq_max");
-                w[0] -= excess / 2; w[1] -= excess / 2; w[2] += excess;
-            }
-            if (constraints.containsKey("bond_min") && bondWeight < constraints.get("bond_min")) {
-                double deficit = constraints.get("bond_min") - bondWeight;
-                w[2] += deficit; w[0] -= deficit / 2; w[1] -= deficit / 2;
-            }
-            if (constraints.containsKey("bond_max") && bondWeight > constraints.get("bond_max")) {
-                double excess = bondWeight - constraints.get("bond_max");
-                w[2] -= excess; w[0] += excess / 2; w[1] += excess / 2;
+        FrontierPoint[] out = new FrontierPoint[count];
+        int chunks = Math.min(count, frontierPool.getParallelism());
+        int per = (count + chunks - 1) / chunks;
+
+        frontierPool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+            ConstraintModel local = constraints.copy(); // projection scratch is per thread
+            double[] warm = null;
+            for (int k = c * per; k < Math.min(count, (c + 1) * per); k++) {
+                MeanVarianceSolver.Result res = mvoSolver.solve(problem, lambdas[k], local, warm);
+                warm = res.weights;
+
+                Map<String, Double> weights = new LinkedHashMap<>();
+                for (int i = 0; i < n; i++) weights.put(assets.get(i), res.weights[i]);
+                out[k] = new FrontierPoint(
+                        lambdas[k],
+                        weights,
+                        problem.expectedReturn(res.weights) * 252,
+                        Math.sqrt(Math.max(0, problem.variance(res.weights)) * 252),
+                        res.iterations
+                );
             }
+        })).join();
 
-            for (int i = 0; i < n; i++) w[i] = Math.max(0, Math.min(1, w[i]));
-            normalize(w);
-        }
+        return Arrays.asList(out);
+    }
+
+    // Idea 3 v3 Risk Parity (equal risk contribution)
+    public Map<String, Double> riskParityOptimize(List<String> assets,
+                                                  double[][] cov,
+                                                  ConstraintModel constraints) {
+        RiskParitySolver.Result res = riskParitySolve(cov, constraints);
 
         Map<String, Double> out = new LinkedHashMap<>();
-        for (int i = 0; i < n; i++) out.put(assets.get(i), w[i]);
+        for (int i = 0; i < assets.size(); i++) out.put(assets.get(i), res.weights[i]);
         return out;
     }
 
-    public String explanation(String tier, Map<String, Double> constraints, Map<String, Double> weights) {
-        double eq = weights.get("VOO") + weights.get("VXUS");
-        double bond = weights.get("BND");
+    /** Risk parity with diagnostics (iterations, residual, realised risk contributions). */
+    public RiskParitySolver.Result riskParitySolve(double[][] cov, ConstraintModel constraints) {
+        return riskParitySolver.solve(cov, constraints);
+    }
+
+    /** Risk parity needs the full Hessian, so Σ is expanded to dense here. */
+    public Map<String, Double> riskParityOptimize(List<String> assets,
+                                                  RiskModel risk,
+                                                  ConstraintModel constraints) {
+        return riskParityOptimize(assets, risk.toDense(), constraints);
+    }
+
+    /**
+     * @param groups named asset groups; "eq" and "bond" totals are reported
+     */
+    public String explanation(String tier, Map<String, Double> constraints,
+                              Map<String, List<String>> groups, Map<String, Double> weights) {
+        double eq = groupWeight(groups.getOrDefault("eq", List.of()), weights);
+        double bond = groupWeight(groups.getOrDefault("bond", List.of()), weights);
 
         return "Risk tier: " + tier.toUpperCase() + "\n"
                 + "Constraints applied: " + constraints + "\n\n"
@@ -142,28 +185,10 @@ public class OptimizerService {
     }
 
     // ---- helpers ----
-    private void normalize(double[] w) {
-        double sum = 0;
-        for (double v : w) sum += v;
-        if (sum == 0) return;
-        for (int i = 0; i < w.length; i++) w[i] /= sum;
-    }
 
-    private double[] marginalRisk(double[][] cov, double[] w) {
-        int n = w.length;
-        double[] out = new double[n];
-        for (int i = 0; i < n; i++) {
-            double s = 0;
-            for (int j = 0; j < n; j++) s += cov[i][j] * w[j];
-            out[i] = s;
-        }
-        return out;
-    }
-
-    private double dot(double[] a, double[] b) {
+    private double groupWeight(List<String> members, Map<String, Double> weights) {
         double s = 0;
-        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        for (String a : members) s += weights.getOrDefault(a, 0.0);
         return s;
     }
 }
-
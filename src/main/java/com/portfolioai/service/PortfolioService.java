@@ -3,8 +3,11 @@ package com.portfolioai.service;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.portfolioai.model.FrontierRequest;
+import com.portfolioai.model.FrontierResponse;
 import com.portfolioai.model.PortfolioRequest;
 import com.portfolioai.model.PortfolioResponse;
 
@@ -14,17 +17,29 @@ public class PortfolioService {
     private final RiskService riskService;
     private final MarketDataService marketDataService;
     private final OptimizerService optimizerService;
+    private final int defaultFrontierPoints;
+    private final int maxFrontierPoints;
 
     private static final List<String> ASSETS = List.of("VOO", "VXUS", "BND");
 
+    // Groups the risk constraints (eq_min, eq_max, bond_min, ...) refer to
+    private static final Map<String, List<String>> ASSET_GROUPS = Map.of(
+            "eq", List.of("VOO", "VXUS"),
+            "bond", List.of("BND")
+    );
+
     public PortfolioService(
             RiskService riskService,
             MarketDataService marketDataService,
-            OptimizerService optimizerService
+            OptimizerService optimizerService,
+            @Value("${portfolio.frontier.default-points:20}") int defaultFrontierPoints,
+            @Value("${portfolio.frontier.max-points:100}") int maxFrontierPoints
     ) {
         this.riskService = riskService;
         this.marketDataService = marketDataService;
         this.optimizerService = optimizerService;
+        this.defaultFrontierPoints = Math.max(2, defaultFrontierPoints);
+        this.maxFrontierPoints = Math.max(2, maxFrontierPoints);
     }
 
     public PortfolioResponse generate(PortfolioRequest req) throws Exception {
@@ -39,11 +54,13 @@ public class PortfolioService {
         String optimizer = (req.getOptimizer() == null) ? "mvo" : req.getOptimizer();
 
         try {
+            ConstraintModel constraints = ConstraintModel.compile(ASSETS, ASSET_GROUPS, rr.constraints);
+
             if ("risk_parity".equalsIgnoreCase(optimizer)) {
-                weights = optimizerService.riskParityOptimize(ASSETS, stats.cov, rr.constraints);
+                weights = optimizerService.riskParityOptimize(ASSETS, stats.riskModel, constraints);
                 optUsed = "risk_parity";
             } else {
-                weights = optimizerService.mvoOptimize(ASSETS, stats.mu, stats.cov, rr.constraints);
+                weights = optimizerService.mvoOptimize(ASSETS, stats.mu, stats.riskModel, constraints);
                 optUsed = "mvo";
             }
         } catch (Exception e) {
@@ -52,7 +69,24 @@ public class PortfolioService {
             optUsed = "templates";
         }
 
-        String explanation = optimizerService.explanation(rr.tier, rr.constraints, weights);
+        String explanation = optimizerService.explanation(rr.tier, rr.constraints, ASSET_GROUPS, weights);
         return new PortfolioResponse(rr.score, rr.tier, weights, explanation, optUsed);
     }
+
+    /**
+     * Efficient frontier of the same assets under the constraints of the quiz
+     * answers' risk profile: MVO solutions from min-variance to max-return.
+     */
+    public FrontierResponse frontier(FrontierRequest req) throws Exception {
+        if (req.getAnswers() == null) throw new IllegalArgumentException("answers are required");
+        var rr = riskService.profile(req.getAnswers());
+
+        MarketDataService.ReturnStats stats = marketDataService.loadReturns(ASSETS, 3);
+        ConstraintModel constraints = ConstraintModel.compile(ASSETS, ASSET_GROUPS, rr.constraints);
+
+        Integer requested = req.getPoints();
+        int points = requested == null || requested <= 0 ? defaultFrontierPoints : Math.min(requested, maxFrontierPoints);
+        return new FrontierResponse(rr.score, rr.tier,
+                optimizerService.efficientFrontier(ASSETS, stats.mu, stats.riskModel, constraints, points));
+    }
 }
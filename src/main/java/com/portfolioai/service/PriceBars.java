@@ -0,0 +1,102 @@
+package com.portfolioai.service;
+
+import java.util.Arrays;
+
+/**
+ * Daily OHLCV bars for one ticker, stored column by column as primitives.
+ * Dates are epoch days (LocalDate.toEpochDay) and must be strictly increasing.
+ */
+public final class PriceBars {
+
+    private int[] days;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private double[] volume;
+    private int size;
+
+    public PriceBars() {
+        this(256);
+    }
+
+    public PriceBars(int capacity) {
+        int cap = Math.max(1, capacity);
+        days = new int[cap];
+        open = new double[cap];
+        high = new double[cap];
+        low = new double[cap];
+        close = new double[cap];
+        volume = new double[cap];
+    }
+
+    /** Appends one bar. Bars that are not newer than the last one are ignored. */
+    public void add(int day, double o, double h, double l, double c, double v) {
+        if (size > 0 && day <= days[size - 1]) return;
+        if (size == days.length) grow();
+        days[size] = day;
+        open[size] = o;
+        high[size] = h;
+        low[size] = l;
+        close[size] = c;
+        volume[size] = v;
+        size++;
+    }
+
+    /** Appends every bar of `other` that is newer than our last bar. */
+    public void addAll(PriceBars other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.days[i], other.open[i], other.high[i], other.low[i], other.close[i], other.volume[i]);
+        }
+    }
+
+    /** Bars strictly after the given epoch day. */
+    public PriceBars after(int epochDay) {
+        PriceBars out = new PriceBars(size);
+        for (int i = 0; i < size; i++) {
+            if (days[i] > epochDay) out.add(days[i], open[i], high[i], low[i], close[i], volume[i]);
+        }
+        return out;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    /** Last stored epoch day, or Integer.MIN_VALUE when empty. */
+    public int lastDay() { return size == 0 ? Integer.MIN_VALUE : days[size - 1]; }
+
+    public int day(int i) { return days[i]; }
+    public double open(int i) { return open[i]; }
+    public double high(int i) { return high[i]; }
+    public double low(int i) { return low[i]; }
+    public double close(int i) { return close[i]; }
+    public double volume(int i) { return volume[i]; }
+
+    /** Close series (trimmed copy), skipping non-positive prices. */
+    public PriceSeries toSeries() {
+        int[] d = new int[size];
+        double[] c = new double[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (close[i] <= 0) continue;
+            d[n] = days[i];
+            c[n] = close[i];
+            n++;
+        }
+        if (n < size) {
+            d = Arrays.copyOf(d, n);
+            c = Arrays.copyOf(c, n);
+        }
+        return PriceSeries.of(d, c);
+    }
+
+    private void grow() {
+        int cap = days.length * 2;
+        days = Arrays.copyOf(days, cap);
+        open = Arrays.copyOf(open, cap);
+        high = Arrays.copyOf(high, cap);
+        low = Arrays.copyOf(low, cap);
+        close = Arrays.copyOf(close, cap);
+        volume = Arrays.copyOf(volume, cap);
+    }
+}
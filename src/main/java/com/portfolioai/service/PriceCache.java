@@ -0,0 +1,172 @@
+package com.portfolioai.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory LRU cache of close series, bounded by the bytes of series data.
+ *
+ * Each entry becomes due for refresh once the next daily bar is published
+ * (refreshAt) and hard-expires a grace period later (expiresAt). Entries that were
+ * read since they were loaded are reported by dueForRefresh() so the owner can
+ * renew them in the background before they expire. A reported entry is marked
+ * in flight and not reported again until it is replaced by put() or released
+ * with refreshDone(), so overlapping checks do not queue the same key twice.
+ *
+ * Only get() counts as a use: refresh bookkeeping looks entries up through a
+ * side index that leaves the access order alone, and a refreshed series
+ * replaces its entry in place, so background renewals never make a key look
+ * recently used.
+ */
+public final class PriceCache {
+
+    private static final class Entry {
+        PriceSeries series;
+        long bytes;
+        long refreshAt;
+        long expiresAt;
+        boolean hot;
+        boolean refreshing;
+
+        Entry(PriceSeries series, long refreshAt, long expiresAt) {
+            renew(series, refreshAt, expiresAt);
+        }
+
+        void renew(PriceSeries series, long refreshAt, long expiresAt) {
+            this.series = series;
+            this.bytes = series.sizeInBytes();
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+            this.hot = false;
+            this.refreshing = false;
+        }
+    }
+
+    /** Point-in-time counters. */
+    public static final class Stats {
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final long expirations;
+        public final long loads;
+        public final double avgLoadMillis;
+        public final int entries;
+        public final long bytes;
+        public final long maxBytes;
+
+        Stats(long hits, long misses, long evictions, long expirations, long loads,
+              double avgLoadMillis, int entries, long bytes, long maxBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.loads = loads;
+            this.avgLoadMillis = avgLoadMillis;
+            this.entries = entries;
+            this.bytes = bytes;
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> map = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Entry> index = new HashMap<>(); // same entries, lookups that keep LRU order
+    private long bytes;
+
+    private long hits, misses, evictions, expirations, loads, loadNanos;
+
+    public PriceCache(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+    }
+
+    /** Returns the cached series, or null on a miss / expired entry. */
+    public synchronized PriceSeries get(String key, long nowMillis) {
+        Entry e = map.get(key);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        if (nowMillis >= e.expiresAt) {
+            remove(key, e);
+            expirations++;
+            misses++;
+            return null;
+        }
+        e.hot = true;
+        hits++;
+        return e.series;
+    }
+
+    public synchronized void put(String key, PriceSeries series, long refreshAt, long expiresAt) {
+        Entry old = index.get(key);
+        if (series.sizeInBytes() > maxBytes) { // would never fit
+            if (old != null) remove(key, old);
+            return;
+        }
+
+        if (old != null && old.refreshing) {
+            // background refresh: renew in place so the key keeps its LRU position
+            bytes -= old.bytes;
+            old.renew(series, refreshAt, expiresAt);
+            bytes += old.bytes;
+        } else {
+            if (old != null) remove(key, old);
+            Entry e = new Entry(series, refreshAt, expiresAt);
+            map.put(key, e);
+            index.put(key, e);
+            bytes += e.bytes;
+        }
+
+        Iterator<Map.Entry<String, Entry>> it = map.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry> lru = it.next();
+            if (lru.getKey().equals(key)) continue;
+            bytes -= lru.getValue().bytes;
+            it.remove();
+            index.remove(lru.getKey());
+            evictions++;
+        }
+    }
+
+    public synchronized void recordLoad(long nanos) {
+        loads++;
+        loadNanos += nanos;
+    }
+
+    /**
+     * Keys read since their last load whose refresh time has passed and that are
+     * not already being refreshed; the returned keys are marked in flight.
+     */
+    public synchronized List<String> dueForRefresh(long nowMillis) {
+        List<String> out = new ArrayList<>();
+        for (Map.Entry<String, Entry> me : map.entrySet()) {
+            Entry e = me.getValue();
+            if (e.hot && !e.refreshing && nowMillis >= e.refreshAt && nowMillis < e.expiresAt) {
+                e.refreshing = true;
+                out.add(me.getKey());
+            }
+        }
+        return out;
+    }
+
+    /** Clears the in-flight mark of a key whose refresh did not put a new entry. */
+    public synchronized void refreshDone(String key) {
+        Entry e = index.get(key);
+        if (e != null) e.refreshing = false;
+    }
+
+    public synchronized Stats stats() {
+        double avg = loads == 0 ? 0 : (loadNanos / 1e6) / loads;
+        return new Stats(hits, misses, evictions, expirations, loads, avg, map.size(), bytes, maxBytes);
+    }
+
+    private void remove(String key, Entry e) {
+        map.remove(key);
+        index.remove(key);
+        bytes -= e.bytes;
+    }
+}
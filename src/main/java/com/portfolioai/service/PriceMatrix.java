@@ -0,0 +1,329 @@
+package com.portfolioai.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Dates x tickers daily close matrix in one memory-mapped file, so a universe
+ * of thousands of tickers with decades of history is read straight from the
+ * page cache instead of living on the Java heap.
+ *
+ * File layout (little endian):
+ *   header : int magic, int version, int tickers, int dates, int sessionDay
+ *   names  : tickers x 16 bytes (ASCII, zero padded)
+ *   spans  : tickers x (int firstDate, int lastDate)   date indices, -1 if no data
+ *   days   : dates x int epochDay                        union of all tickers' dates
+ *   padding to 8 bytes
+ *   closes : tickers x dates doubles, one contiguous row per ticker
+ *
+ * Inside a ticker's span, dates it did not trade carry the previous close
+ * forward and are stored negated (the sign bit marks "filled"); outside the
+ * span values are NaN. Only the small header, names and day index are copied
+ * to the heap; rows are views over the mapping. Instances are immutable and
+ * safe to share across threads.
+ */
+public final class PriceMatrix {
+
+    private static final int MAGIC = 0x50584D31; // "PXM1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final int NAME_BYTES = 16;
+
+    // epoch days can be negative (pre-1970 history); BitSet indices cannot
+    private static final int DAY_OFFSET = 100_000;
+
+    private final String[] tickers;
+    private final Map<String, Integer> index;
+    private final int[] firstDate;
+    private final int[] lastDate;
+    private final int[] days;
+    private final int sessionDay;
+    private final DoubleBuffer[] chunks; // each holds rowsPerChunk whole rows
+    private final int rowsPerChunk;
+
+    private PriceMatrix(String[] tickers, int[] firstDate, int[] lastDate, int[] days, int sessionDay,
+                        DoubleBuffer[] chunks, int rowsPerChunk) {
+        this.tickers = tickers;
+        this.firstDate = firstDate;
+        this.lastDate = lastDate;
+        this.days = days;
+        this.sessionDay = sessionDay;
+        this.chunks = chunks;
+        this.rowsPerChunk = rowsPerChunk;
+        this.index = new HashMap<>(tickers.length * 2);
+        for (int i = 0; i < tickers.length; i++) index.putIfAbsent(tickers[i], i);
+    }
+
+    /** One ticker's closes over its span, read through the mapping. */
+    public final class Row implements CloseSeries {
+        private final DoubleBuffer data;
+        private final int base;  // index in data of date index `from`
+        private final int from;
+        private final int length;
+
+        private Row(int ticker) {
+            this.data = chunks[ticker / rowsPerChunk];
+            this.from = Math.max(0, firstDate[ticker]);
+            this.length = firstDate[ticker] < 0 ? 0 : lastDate[ticker] - firstDate[ticker] + 1;
+            this.base = (ticker % rowsPerChunk) * days.length + from;
+        }
+
+        @Override
+        public int size() { return length; }
+
+        @Override
+        public double close(int i) { return Math.abs(data.get(base + i)); }
+
+        @Override
+        public int day(int i) { return days[from + i]; }
+
+        /** True if the ticker did not trade on day(i) and the close was carried forward. */
+        public boolean isFilled(int i) {
+            return Double.doubleToRawLongBits(data.get(base + i)) < 0;
+        }
+
+        /** Date index (into the matrix calendar) of element 0. */
+        public int dateOffset() { return from; }
+    }
+
+    // ---- reading ----
+
+    public static PriceMatrix open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (head.getInt() != MAGIC || head.getInt() != VERSION) {
+                throw new IOException("Not a price matrix file: " + file);
+            }
+            int n = head.getInt();
+            int dates = head.getInt();
+            int session = head.getInt();
+
+            long dataStart = dataStart(n, dates);
+            long rowBytes = (long) dates * Double.BYTES;
+            if (ch.size() < dataStart + rowBytes * n) throw new IOException("Truncated price matrix: " + file);
+
+            ByteBuffer meta = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, dataStart - HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            String[] tickers = new String[n];
+            byte[] name = new byte[NAME_BYTES];
+            for (int i = 0; i < n; i++) {
+                meta.get(name);
+                int len = 0;
+                while (len < NAME_BYTES && name[len] != 0) len++;
+                tickers[i] = new String(name, 0, len, StandardCharsets.US_ASCII).intern();
+            }
+            int[] first = new int[n];
+            int[] last = new int[n];
+            for (int i = 0; i < n; i++) {
+                first[i] = meta.getInt();
+                last[i] = meta.getInt();
+            }
+            int[] days = new int[dates];
+            for (int t = 0; t < dates; t++) days[t] = meta.getInt();
+
+            // a single mapping is limited to 2 GB, so map whole rows in chunks
+            int rowsPerChunk = (int) Math.max(1, Math.min(n == 0 ? 1 : n, Integer.MAX_VALUE / Math.max(1, rowBytes)));
+            int chunkCount = n == 0 ? 0 : (n + rowsPerChunk - 1) / rowsPerChunk;
+            DoubleBuffer[] chunks = new DoubleBuffer[chunkCount];
+            for (int c = 0; c < chunkCount; c++) {
+                int rows = Math.min(rowsPerChunk, n - c * rowsPerChunk);
+                MappedByteBuffer m = ch.map(FileChannel.MapMode.READ_ONLY,
+                        dataStart + (long) c * rowsPerChunk * rowBytes, rows * rowBytes);
+                chunks[c] = m.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            }
+            return new PriceMatrix(tickers, first, last, days, session, chunks, rowsPerChunk);
+        }
+    }
+
+    public int tickers() { return tickers.length; }
+
+    public int dates() { return days.length; }
+
+    public String ticker(int i) { return tickers[i]; }
+
+    /** Row index of the ticker, or -1. */
+    public int indexOf(String ticker) {
+        if (ticker == null) return -1;
+        Integer i = index.get(ticker.trim().toUpperCase());
+        return i == null ? -1 : i;
+    }
+
+    /** Epoch day of the last completed session the matrix was built for. */
+    public int sessionDay() { return sessionDay; }
+
+    /** Epoch day of the ticker's last real close; Integer.MIN_VALUE if it has none. */
+    public int lastDay(int ticker) {
+        return firstDate[ticker] < 0 ? Integer.MIN_VALUE : days[lastDate[ticker]];
+    }
+
+    public Row row(int ticker) {
+        return new Row(ticker);
+    }
+
+    /**
+     * Daily returns of the given rows on their common span, keeping at most
+     * the last `maxPeriods` periods. FORWARD_FILL keeps dates on which any of
+     * the rows traded (a filled close gives a zero return); DROP keeps only
+     * dates on which every row traded. Same dates as ReturnsAligner gives for
+     * the rows' PriceSeries.
+     */
+    public ReturnsMatrix returns(int[] rows, ReturnsAligner.MissingDataPolicy policy, int maxPeriods) {
+        int n = rows.length;
+        int from = 0, to = days.length - 1;
+        for (int r : rows) {
+            if (firstDate[r] < 0) return new ReturnsMatrix(n, 0, new int[0], new double[0]);
+            from = Math.max(from, firstDate[r]);
+            to = Math.min(to, lastDate[r]);
+        }
+        if (from >= to) return new ReturnsMatrix(n, 0, new int[0], new double[0]);
+
+        // dates kept (indices into the calendar), newest maxPeriods + 1 of them
+        int[] kept = new int[to - from + 1];
+        int count = 0;
+        boolean all = policy == ReturnsAligner.MissingDataPolicy.DROP;
+        for (int t = from; t <= to; t++) {
+            // DROP: every row traded; FORWARD_FILL: at least one did (the calendar is
+            // the whole universe's, so other rows' dates must not add zero-return rows)
+            int traded = 0;
+            for (int r : rows) {
+                if (Double.doubleToRawLongBits(rawAt(r, t)) >= 0) traded++;
+                else if (all) break;
+            }
+            if (all ? traded == n : traded > 0) kept[count++] = t;
+        }
+        int periods = Math.max(0, Math.min(count - 1, maxPeriods));
+        int start = count - 1 - periods;
+
+        int[] outDays = new int[periods];
+        for (int p = 0; p < periods; p++) outDays[p] = days[kept[start + 1 + p]];
+
+        double[] data = new double[n * periods];
+        for (int i = 0; i < n; i++) {
+            int off = i * periods;
+            double prev = Math.abs(rawAt(rows[i], kept[start]));
+            for (int p = 0; p < periods; p++) {
+                double cur = Math.abs(rawAt(rows[i], kept[start + 1 + p]));
+                data[off + p] = cur / prev - 1.0;
+                prev = cur;
+            }
+        }
+        return new ReturnsMatrix(n, periods, outDays, data);
+    }
+
+    private double rawAt(int ticker, int date) {
+        return chunks[ticker / rowsPerChunk].get((ticker % rowsPerChunk) * days.length + date);
+    }
+
+    // ---- writing ----
+
+    /**
+     * Writes a matrix for `tickers` to `file`, loading one ticker at a time
+     * (two passes: calendar, then rows), so heap use stays at one series plus
+     * one row buffer regardless of universe size. Written to a temp file and
+     * moved into place; existing mappings of the old file stay valid.
+     */
+    public static void write(Path file, List<String> tickers, Function<String, CloseSeries> loader,
+                             int sessionDay) throws IOException {
+        List<String> names = new ArrayList<>(tickers.size());
+        for (String t : tickers) {
+            String u = t.trim().toUpperCase();
+            if (u.isEmpty() || u.length() > NAME_BYTES || !StandardCharsets.US_ASCII.newEncoder().canEncode(u)) continue;
+            names.add(u);
+        }
+
+        // pass 1: union calendar
+        BitSet seen = new BitSet();
+        for (String t : names) {
+            CloseSeries s = loader.apply(t);
+            for (int i = 0; i < s.size(); i++) seen.set(s.day(i) + DAY_OFFSET);
+        }
+        int dates = seen.cardinality();
+        int[] days = new int[dates];
+        Map<Integer, Integer> dateIndex = new HashMap<>(dates * 2);
+        for (int b = seen.nextSetBit(0), t = 0; b >= 0; b = seen.nextSetBit(b + 1), t++) {
+            days[t] = b - DAY_OFFSET;
+            dateIndex.put(days[t], t);
+        }
+
+        int n = names.size();
+        long dataStart = dataStart(n, dates);
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int[] first = new int[n];
+            int[] last = new int[n];
+
+            // pass 2: rows (the metadata block is written last, once spans are known)
+            ByteBuffer row = ByteBuffer.allocate(dates * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < n; i++) {
+                CloseSeries s = loader.apply(names.get(i));
+                row.clear();
+                first[i] = -1;
+                last[i] = -1;
+                if (s.isEmpty()) {
+                    for (int t = 0; t < dates; t++) row.putDouble(Double.NaN);
+                } else {
+                    first[i] = dateIndex.get(s.day(0));
+                    last[i] = dateIndex.get(s.lastDay());
+                    int k = 0;
+                    double carried = Double.NaN;
+                    for (int t = 0; t < dates; t++) {
+                        double v;
+                        if (t < first[i] || t > last[i]) {
+                            v = Double.NaN;
+                        } else if (k < s.size() && s.day(k) == days[t]) {
+                            carried = s.close(k++);
+                            v = carried;
+                        } else {
+                            v = -carried; // filled
+                        }
+                        row.putDouble(v);
+                    }
+                }
+                row.flip();
+                long pos = dataStart + (long) i * dates * Double.BYTES;
+                while (row.hasRemaining()) pos += ch.write(row, pos);
+            }
+
+            ByteBuffer meta = ByteBuffer.allocate((int) dataStart).order(ByteOrder.LITTLE_ENDIAN);
+            meta.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(dates).putInt(sessionDay);
+            for (String t : names) {
+                byte[] b = t.getBytes(StandardCharsets.US_ASCII);
+                meta.put(b);
+                meta.put(new byte[NAME_BYTES - b.length]);
+            }
+            for (int i = 0; i < n; i++) meta.putInt(first[i]).putInt(last[i]);
+            for (int d : days) meta.putInt(d);
+            meta.position((int) dataStart).flip();
+            long pos = 0;
+            while (meta.hasRemaining()) pos += ch.write(meta, pos);
+            ch.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long dataStart(int tickers, int dates) {
+        long bytes = HEADER_BYTES + (long) tickers * NAME_BYTES + (long) tickers * 8 + (long) dates * 4;
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,111 @@
+package com.portfolioai.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Owns the memory-mapped universe PriceMatrix: rebuilds it from the local
+ * PriceStore after each metrics refresh and swaps the new mapping in
+ * atomically. Readers holding the old matrix keep a valid mapping.
+ */
+@Service
+public class PriceMatrixService {
+
+    private final PriceStore priceStore;
+    private final MarketDataFreeService marketDataFreeService;
+    private final UniverseService universeService;
+    private final boolean enabled;
+    private final Path file;
+    private final List<String> extraTickers;
+
+    private final AtomicReference<PriceMatrix> current = new AtomicReference<>();
+    private volatile boolean triedOpen;
+
+    public PriceMatrixService(PriceStore priceStore,
+                              MarketDataFreeService marketDataFreeService,
+                              UniverseService universeService,
+                              @Value("${marketdata.matrix.enabled:true}") boolean enabled,
+                              @Value("${marketdata.matrix.file:data/prices/universe.pxm}") String file,
+                              @Value("${marketdata.matrix.extra-tickers:VOO,VXUS,BND,SPY}") String[] extraTickers) {
+        this.priceStore = priceStore;
+        this.marketDataFreeService = marketDataFreeService;
+        this.universeService = universeService;
+        this.enabled = enabled && priceStore.isEnabled();
+        this.file = Paths.get(file);
+        this.extraTickers = List.of(extraTickers);
+    }
+
+    /** Current matrix, or null if disabled / not built yet. Opened lazily from disk on first use. */
+    public PriceMatrix current() {
+        if (!enabled) return null;
+        PriceMatrix m = current.get();
+        if (m != null || triedOpen) return m;
+
+        synchronized (this) {
+            if (!triedOpen) {
+                triedOpen = true;
+                if (Files.exists(file)) {
+                    try {
+                        current.compareAndSet(null, PriceMatrix.open(file));
+                    } catch (IOException e) {
+                        System.out.println("WARN: Failed to open price matrix " + file + ": " + e.getMessage());
+                    }
+                }
+            }
+            return current.get();
+        }
+    }
+
+    /**
+     * Current matrix if it was built for the last completed session and every
+     * ticker has a close on that session, else null (callers then load the
+     * series themselves, which also fetches what is missing).
+     */
+    public PriceMatrix currentFor(List<String> tickers) {
+        PriceMatrix m = current();
+        if (m == null) return null;
+        int session = (int) MarketCalendar.lastCompletedSession().toEpochDay();
+        if (m.sessionDay() != session) return null;
+        for (String t : tickers) {
+            int i = m.indexOf(t);
+            if (i < 0 || m.lastDay(i) < session) return null;
+        }
+        return m;
+    }
+
+    /**
+     * Rebuilds the matrix for the universe (plus extra tickers) from stored
+     * prices. Universe tickers were just refreshed by the metrics run; the
+     * extra tickers are brought up to date here first.
+     */
+    public void rebuild() {
+        if (!enabled) return;
+
+        Set<String> tickers = new LinkedHashSet<>(universeService.getAllowedTickers());
+        for (String t : extraTickers) {
+            if (t.isBlank()) continue;
+            String u = t.trim().toUpperCase();
+            marketDataFreeService.loadDailyClosesUS(u); // fetches and stores any missing bars
+            tickers.add(u);
+        }
+
+        int session = (int) MarketCalendar.lastCompletedSession().toEpochDay();
+        try {
+            PriceMatrix.write(file, new ArrayList<>(tickers), t -> priceStore.read(t).toSeries(), session);
+            current.set(PriceMatrix.open(file));
+            triedOpen = true;
+        } catch (IOException e) {
+            System.out.println("WARN: Failed to build price matrix " + file + ": " + e.getMessage());
+        }
+    }
+}
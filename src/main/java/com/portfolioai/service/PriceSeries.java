@@ -0,0 +1,90 @@
+package com.portfolioai.service;
+
+/**
+ * Compact daily close series: primitive closes plus epoch-day dates,
+ * chronological (oldest -> newest).
+ *
+ * Instances are immutable views over shared arrays; window()/tail() return
+ * new views without copying.
+ */
+public final class PriceSeries implements CloseSeries {
+
+    private static final PriceSeries EMPTY = new PriceSeries(new int[0], new double[0], 0, 0);
+
+    private final int[] days;
+    private final double[] closes;
+    private final int offset;
+    private final int length;
+
+    private PriceSeries(int[] days, double[] closes, int offset, int length) {
+        this.days = days;
+        this.closes = closes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /** Wraps the arrays (no copy). Callers must not modify them afterwards. */
+    public static PriceSeries of(int[] days, double[] closes) {
+        if (days.length != closes.length) {
+            throw new IllegalArgumentException("days and closes differ in length");
+        }
+        return new PriceSeries(days, closes, 0, closes.length);
+    }
+
+    public static PriceSeries empty() {
+        return EMPTY;
+    }
+
+    @Override
+    public int size() { return length; }
+    @Override
+    public boolean isEmpty() { return length == 0; }
+
+    @Override
+    public double close(int i) { return closes[offset + i]; }
+    @Override
+    public int day(int i) { return days[offset + i]; }
+
+    @Override
+    public double firstClose() { return closes[offset]; }
+    @Override
+    public double lastClose() { return closes[offset + length - 1]; }
+
+    /** Index of the bar on `day` (binary search), or -1. */
+    @Override
+    public int indexOfDay(int day) {
+        int lo = 0, hi = length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int d = days[offset + mid];
+            if (d < day) lo = mid + 1;
+            else if (d > day) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /** Last epoch day, or Integer.MIN_VALUE when empty. */
+    @Override
+    public int lastDay() { return length == 0 ? Integer.MIN_VALUE : days[offset + length - 1]; }
+
+    /** View of [from, to) by index. */
+    public PriceSeries window(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("window [" + from + ", " + to + ") of " + length);
+        }
+        return new PriceSeries(days, closes, offset + from, to - from);
+    }
+
+    /** View of the last n points (or everything if shorter). */
+    @Override
+    public PriceSeries tail(int n) {
+        int keep = Math.min(Math.max(n, 0), length);
+        return window(length - keep, length);
+    }
+
+    /** Approximate heap footprint of the backing data in this view. */
+    public long sizeInBytes() {
+        return (long) length * (Integer.BYTES + Double.BYTES);
+    }
+}
@@ -0,0 +1,193 @@
+package com.portfolioai.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Local daily price store: one file per ticker under marketdata.store.dir.
+ *
+ * File layout (little endian):
+ *   header : int magic, int version
+ *   records: int epochDay, double open, high, low, close, volume  (44 bytes each)
+ *
+ * Records are fixed width and chronological, so appending new bars is a single
+ * write at the end of the file and reads are one memory-mapped pass.
+ * A partially written trailing record (e.g. after a crash) is ignored.
+ */
+@Service
+public class PriceStore {
+
+    private static final int MAGIC = 0x50585331; // "PXS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_BYTES = 4 + 5 * 8;
+
+    private final Path dir;
+    private final boolean enabled;
+
+    // one lock per ticker so reads never see a half-appended file
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    public PriceStore(@Value("${marketdata.store.dir:data/prices}") String dir,
+                      @Value("${marketdata.store.enabled:true}") boolean enabled) {
+        this.dir = Paths.get(dir);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reads all stored bars for a ticker. Returns empty bars if nothing is stored
+     * (or the store is disabled / unreadable).
+     */
+    public PriceBars read(String tickerUpper) {
+        if (!enabled) return new PriceBars(1);
+        Path file = fileFor(tickerUpper);
+
+        synchronized (lockFor(tickerUpper)) {
+            if (!Files.exists(file)) return new PriceBars(1);
+
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                long bytes = ch.size();
+                if (bytes < HEADER_BYTES) return new PriceBars(1);
+
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+                buf.order(ByteOrder.LITTLE_ENDIAN);
+
+                if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                    System.out.println("WARN: Ignoring unrecognised price file " + file);
+                    return new PriceBars(1);
+                }
+
+                int count = (int) ((bytes - HEADER_BYTES) / RECORD_BYTES);
+                PriceBars bars = new PriceBars(count);
+                for (int i = 0; i < count; i++) {
+                    int day = buf.getInt();
+                    double o = buf.getDouble();
+                    double h = buf.getDouble();
+                    double l = buf.getDouble();
+                    double c = buf.getDouble();
+                    double v = buf.getDouble();
+                    bars.add(day, o, h, l, c, v);
+                }
+                return bars;
+            } catch (IOException e) {
+                System.out.println("WARN: Failed to read price file for " + tickerUpper + ": " + e.getMessage());
+                return new PriceBars(1);
+            }
+        }
+    }
+
+    /**
+     * Appends bars newer than `lastStoredDay` to the ticker's file
+     * (creating it if needed). Older or duplicate bars are skipped.
+     */
+    public void append(String tickerUpper, int lastStoredDay, PriceBars bars) {
+        if (!enabled || bars == null || bars.isEmpty()) return;
+        Path file = fileFor(tickerUpper);
+
+        synchronized (lockFor(tickerUpper)) {
+            try {
+                Files.createDirectories(dir);
+                boolean fresh = !Files.exists(file) || Files.size(file) < HEADER_BYTES;
+
+                int count = 0;
+                for (int i = 0; i < bars.size(); i++) {
+                    if (bars.day(i) > lastStoredDay) count++;
+                }
+                if (count == 0) return;
+
+                ByteBuffer buf = ByteBuffer.allocate((fresh ? HEADER_BYTES : 0) + count * RECORD_BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                if (fresh) buf.putInt(MAGIC).putInt(VERSION);
+
+                for (int i = 0; i < bars.size(); i++) {
+                    if (bars.day(i) <= lastStoredDay) continue;
+                    buf.putInt(bars.day(i))
+                            .putDouble(bars.open(i))
+                            .putDouble(bars.high(i))
+                            .putDouble(bars.low(i))
+                            .putDouble(bars.close(i))
+                            .putDouble(bars.volume(i));
+                }
+                buf.flip();
+
+                try (FileChannel ch = FileChannel.open(file,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    long pos = fresh ? 0 : alignedEnd(ch.size());
+                    if (fresh) ch.truncate(0);
+                    else ch.truncate(pos);
+                    while (buf.hasRemaining()) pos += ch.write(buf, pos);
+                }
+            } catch (IOException e) {
+                System.out.println("WARN: Failed to write price file for " + tickerUpper + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Replaces the ticker's whole history, e.g. after Stooq re-adjusted it for
+     * a split or dividend. Written to a temp file and moved into place.
+     */
+    public void replace(String tickerUpper, PriceBars bars) {
+        if (!enabled || bars == null || bars.isEmpty()) return;
+        Path file = fileFor(tickerUpper);
+
+        synchronized (lockFor(tickerUpper)) {
+            try {
+                Files.createDirectories(dir);
+                ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + bars.size() * RECORD_BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                buf.putInt(MAGIC).putInt(VERSION);
+                for (int i = 0; i < bars.size(); i++) {
+                    buf.putInt(bars.day(i))
+                            .putDouble(bars.open(i))
+                            .putDouble(bars.high(i))
+                            .putDouble(bars.low(i))
+                            .putDouble(bars.close(i))
+                            .putDouble(bars.volume(i));
+                }
+                buf.flip();
+
+                Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    while (buf.hasRemaining()) ch.write(buf);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.out.println("WARN: Failed to rewrite price file for " + tickerUpper + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // drop any partial trailing record before appending
+    private static long alignedEnd(long size) {
+        return HEADER_BYTES + ((size - HEADER_BYTES) / RECORD_BYTES) * RECORD_BYTES;
+    }
+
+    private Path fileFor(String tickerUpper) {
+        // tickers like BRK.B are fine as file names; strip anything path-like
+        String safe = tickerUpper.replaceAll("[^A-Z0-9._-]", "_");
+        return dir.resolve(safe + ".px");
+    }
+
+    private Object lockFor(String tickerUpper) {
+        return locks.computeIfAbsent(tickerUpper, k -> new Object());
+    }
+}
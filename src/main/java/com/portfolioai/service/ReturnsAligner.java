@@ -0,0 +1,115 @@
+package com.portfolioai.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Joins per-asset close series on trading date and turns them into a dense
+ * ReturnsMatrix.
+ *
+ * Only the span where every asset has data is used (latest first date to
+ * earliest last date). Within it, dates are counted in one pass over all series,
+ * and each asset is then filled in one more pass over its own dates, so the cost
+ * is linear in the total number of input points.
+ */
+public final class ReturnsAligner {
+
+    public enum MissingDataPolicy {
+        /** Keep only dates on which every asset traded. */
+        DROP,
+        /** Keep every date on which any asset traded; carry the last close forward. */
+        FORWARD_FILL;
+
+        /** Null or blank = DROP; unknown names are rejected. */
+        public static MissingDataPolicy parse(String s) {
+            if (s == null || s.isBlank()) return DROP;
+            return switch (s.trim().toLowerCase().replace('-', '_')) {
+                case "drop" -> DROP;
+                case "forward_fill", "ffill" -> FORWARD_FILL;
+                default -> throw new IllegalArgumentException("Unknown missing-data policy: " + s + " (drop, forward_fill)");
+            };
+        }
+    }
+
+    private ReturnsAligner() {
+    }
+
+    /**
+     * @param maxPeriods keep at most this many (most recent) return periods
+     */
+    public static ReturnsMatrix align(List<PriceSeries> series, MissingDataPolicy policy, int maxPeriods) {
+        int n = series.size();
+        if (n == 0) return new ReturnsMatrix(0, 0, new int[0], new double[0]);
+
+        int first = Integer.MIN_VALUE;
+        int last = Integer.MAX_VALUE;
+        for (PriceSeries s : series) {
+            if (s.isEmpty()) return new ReturnsMatrix(n, 0, new int[0], new double[0]);
+            first = Math.max(first, s.day(0));
+            last = Math.min(last, s.lastDay());
+        }
+        if (first > last) return new ReturnsMatrix(n, 0, new int[0], new double[0]);
+
+        // 1) how many assets traded on each calendar day in [first, last]
+        int[] counts = new int[last - first + 1];
+        for (PriceSeries s : series) {
+            for (int i = lowerBound(s, first); i < s.size(); i++) {
+                int d = s.day(i);
+                if (d > last) break;
+                counts[d - first]++;
+            }
+        }
+
+        int need = policy == MissingDataPolicy.DROP ? n : 1;
+        int dates = 0;
+        for (int c : counts) if (c >= need) dates++;
+
+        // keep only the tail we need: maxPeriods returns -> maxPeriods + 1 closes
+        int keep = Math.min(dates, maxPeriods + 1);
+        int skip = dates - keep;
+        int[] priceDays = new int[keep];
+        for (int d = 0, k = 0, seen = 0; d < counts.length; d++) {
+            if (counts[d] < need) continue;
+            if (seen++ >= skip) priceDays[k++] = first + d;
+        }
+
+        int periods = Math.max(0, keep - 1);
+        int[] retDays = periods == 0 ? new int[0] : Arrays.copyOfRange(priceDays, 1, keep);
+        double[] data = new double[n * periods];
+        if (periods == 0) return new ReturnsMatrix(n, 0, retDays, data);
+
+        // 2) per asset: walk its dates alongside the aligned dates
+        for (int a = 0; a < n; a++) {
+            PriceSeries s = series.get(a);
+            int p = Math.max(0, lowerBound(s, priceDays[0]) - 1);
+            double prevClose = Double.NaN;
+            double lastSeen = Double.NaN;
+            int base = a * periods;
+
+            for (int t = 0; t < keep; t++) {
+                int d = priceDays[t];
+                while (p < s.size() && s.day(p) <= d) {
+                    lastSeen = s.close(p);
+                    p++;
+                }
+                // lastSeen is the close on d (DROP guarantees an exact match),
+                // or the last earlier close (FORWARD_FILL)
+                double close = lastSeen;
+                if (t > 0) data[base + t - 1] = close / prevClose - 1.0;
+                prevClose = close;
+            }
+        }
+
+        return new ReturnsMatrix(n, periods, retDays, data);
+    }
+
+    private static int lowerBound(PriceSeries s, int day) {
+        int lo = 0, hi = s.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (s.day(mid) < day) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
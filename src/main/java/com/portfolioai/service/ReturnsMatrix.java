@@ -0,0 +1,47 @@
+package com.portfolioai.service;
+
+import java.util.Arrays;
+
+/**
+ * Dense daily returns for several assets on a common set of dates.
+ *
+ * Stored asset-major in one contiguous array: asset i occupies
+ * data[i * periods, (i + 1) * periods). days[t] is the date (epoch day)
+ * of the close that ends period t.
+ */
+public final class ReturnsMatrix {
+
+    private final int assets;
+    private final int periods;
+    private final int[] days;
+    private final double[] data;
+
+    public ReturnsMatrix(int assets, int periods, int[] days, double[] data) {
+        if (days.length != periods || data.length != (long) assets * periods) {
+            throw new IllegalArgumentException("matrix shape does not match " + assets + "x" + periods);
+        }
+        this.assets = assets;
+        this.periods = periods;
+        this.days = days;
+        this.data = data;
+    }
+
+    public int assets() { return assets; }
+    public int periods() { return periods; }
+
+    public int day(int t) { return days[t]; }
+
+    public double get(int asset, int t) { return data[asset * periods + t]; }
+
+    /** Start of asset's row in data(). */
+    public int offset(int asset) { return asset * periods; }
+
+    /** Backing array (asset-major). Do not modify. */
+    public double[] data() { return data; }
+
+    /** Copy of one asset's returns. */
+    public double[] row(int asset) {
+        int from = asset * periods;
+        return Arrays.copyOfRange(data, from, from + periods);
+    }
+}
@@ -0,0 +1,35 @@
+package com.portfolioai.service;
+
+/**
+ * Covariance of asset returns, accessed through products so that structured
+ * forms (e.g. factor models) never need an n x n matrix.
+ * Implementations are immutable and safe to share across threads.
+ */
+public interface RiskModel {
+
+    int size();
+
+    /** Length of the `work` array multiply() needs (0 if none). */
+    int workSize();
+
+    /** out = Σx. `work` must have at least workSize() elements; x and out must differ. */
+    void multiply(double[] x, double[] out, double[] work);
+
+    /** Σ_ii */
+    double variance(int asset);
+
+    /** Upper bound on the largest eigenvalue of Σ (used for solver step sizes). */
+    double maxEigenvalueBound();
+
+    /** Dense n x n copy. O(n^2) memory; avoid for large universes. */
+    double[][] toDense();
+
+    /** x'Σx */
+    default double variance(double[] x) {
+        double[] sx = new double[size()];
+        multiply(x, sx, new double[workSize()]);
+        double v = 0;
+        for (int i = 0; i < x.length; i++) v += x[i] * sx[i];
+        return v;
+    }
+}
@@ -0,0 +1,25 @@
+package com.portfolioai.service;
+
+/** Which covariance estimator MarketDataService uses for ReturnStats. */
+public enum RiskModelEstimator {
+    /** Plain sample covariance. */
+    SAMPLE,
+    /** Sample covariance shrunk towards a scaled identity (Ledoit-Wolf 2004). */
+    LEDOIT_WOLF,
+    /** Exponentially weighted covariance (RiskMetrics style). */
+    EWMA,
+    /** Statistical factor model: top-k principal components plus specific variance. */
+    FACTOR;
+
+    /** Null or blank = SAMPLE; unknown names are rejected. */
+    public static RiskModelEstimator parse(String s) {
+        if (s == null || s.isBlank()) return SAMPLE;
+        return switch (s.trim().toLowerCase().replace('-', '_')) {
+            case "sample" -> SAMPLE;
+            case "ledoit_wolf", "shrinkage" -> LEDOIT_WOLF;
+            case "ewma" -> EWMA;
+            case "factor", "pca" -> FACTOR;
+            default -> throw new IllegalArgumentException("Unknown risk model: " + s + " (sample, ledoit_wolf, ewma, factor)");
+        };
+    }
+}
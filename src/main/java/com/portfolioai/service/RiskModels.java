@@ -0,0 +1,191 @@
+package com.portfolioai.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Risk-model estimators over a ReturnsMatrix. All of them work on the centred
+ * returns directly; the factor model never forms the n x n sample covariance.
+ */
+public final class RiskModels {
+
+    private static final int SUBSPACE_ITERATIONS = 50;
+    private static final double SUBSPACE_TOLERANCE = 1e-10;
+
+    // specific variance floor, as a share of each asset's total variance
+    private static final double SPECIFIC_FLOOR = 1e-3;
+
+    private RiskModels() {
+    }
+
+    public static RiskModel estimate(RiskModelEstimator estimator, ReturnsMatrix r, double[] mu,
+                                     int factors, double ewmaLambda) {
+        return switch (estimator) {
+            case SAMPLE -> new DenseRiskModel(CovarianceEngine.covariance(r, mu));
+            case LEDOIT_WOLF -> ledoitWolf(r, mu);
+            case EWMA -> ewma(r, ewmaLambda);
+            case FACTOR -> statisticalFactors(r, mu, factors);
+        };
+    }
+
+    /**
+     * Ledoit-Wolf (2004) shrinkage of the sample covariance S towards m*I,
+     * m = trace(S)/n, with the intensity estimated from the data.
+     */
+    public static DenseRiskModel ledoitWolf(ReturnsMatrix r, double[] mu) {
+        int n = r.assets(), len = r.periods();
+        double[] x = CovarianceEngine.centred(r, mu);
+        double[][] s = CovarianceEngine.crossProduct(x, n, len, 1.0 / len);
+
+        double trace = 0, frob = 0;
+        for (int i = 0; i < n; i++) {
+            trace += s[i][i];
+            for (int j = 0; j < n; j++) frob += s[i][j] * s[i][j];
+        }
+        double m = trace / n;
+        double d2 = frob - 2 * m * trace + n * m * m; // ||S - mI||^2
+
+        // (1/T^2) sum_t ||x_t x_t' - S||^2  ==  (sum_t ||x_t||^4 - T ||S||^2) / T^2
+        double[] norms = new double[len];
+        for (int i = 0; i < n; i++) {
+            int off = i * len;
+            for (int t = 0; t < len; t++) norms[t] += x[off + t] * x[off + t];
+        }
+        double fourth = 0;
+        for (double v : norms) fourth += v * v;
+        double b2 = Math.min(d2, Math.max(0, (fourth - len * frob) / ((double) len * len)));
+        double delta = d2 > 0 ? b2 / d2 : 1.0;
+
+        // apply the intensity to the unbiased (T - 1) sample covariance
+        double unbias = len / (len - 1.0);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                s[i][j] = (1 - delta) * s[i][j] * unbias + (i == j ? delta * m * unbias : 0);
+            }
+        }
+        return new DenseRiskModel(s);
+    }
+
+    /** Exponentially weighted covariance; the newest period has the largest weight. */
+    public static DenseRiskModel ewma(ReturnsMatrix r, double lambda) {
+        int n = r.assets(), len = r.periods();
+        double[] weights = new double[len];
+        double total = 0;
+        for (int t = len - 1, p = 0; t >= 0; t--, p++) {
+            weights[t] = Math.pow(lambda, p);
+            total += weights[t];
+        }
+
+        double[] src = r.data();
+        double[] y = new double[n * len];
+        for (int i = 0; i < n; i++) {
+            int off = r.offset(i);
+            double mean = 0;
+            for (int t = 0; t < len; t++) mean += weights[t] * src[off + t];
+            mean /= total;
+            for (int t = 0; t < len; t++) y[off + t] = Math.sqrt(weights[t] / total) * (src[off + t] - mean);
+        }
+        return new DenseRiskModel(CovarianceEngine.crossProduct(y, n, len, 1.0));
+    }
+
+    /**
+     * k principal components of the sample covariance, found by subspace
+     * iteration on the centred returns (each step is O(n T k)), plus a diagonal
+     * of specific variances.
+     */
+    public static FactorRiskModel statisticalFactors(ReturnsMatrix r, double[] mu, int factors) {
+        int n = r.assets(), len = r.periods();
+        int k = Math.max(1, Math.min(factors, Math.min(n, len - 1)));
+        double[] x = CovarianceEngine.centred(r, mu);
+        double scale = 1.0 / (len - 1);
+
+        // V: n x k row-major, deterministic start
+        double[] v = new double[n * k];
+        SplittableRandom rnd = new SplittableRandom(42);
+        for (int i = 0; i < v.length; i++) v[i] = rnd.nextDouble() - 0.5;
+        orthonormalize(v, n, k);
+
+        double[] xtv = new double[len * k]; // X'V, T x k
+        double[] next = new double[n * k];
+        for (int iter = 0; iter < SUBSPACE_ITERATIONS; iter++) {
+            project(x, v, xtv, n, len, k);
+
+            // next = X (X'V) / (T - 1) = S V
+            for (int i = 0; i < n; i++) {
+                int xo = i * len, vo = i * k;
+                for (int a = 0; a < k; a++) next[vo + a] = 0;
+                for (int t = 0; t < len; t++) {
+                    double xi = x[xo + t] * scale;
+                    int to = t * k;
+                    for (int a = 0; a < k; a++) next[vo + a] += xi * xtv[to + a];
+                }
+            }
+            orthonormalize(next, n, k);
+
+            // converged when the basis stops moving (up to sign)
+            double change = 0;
+            for (int a = 0; a < k; a++) {
+                double dot = 0;
+                for (int i = 0; i < n; i++) dot += v[i * k + a] * next[i * k + a];
+                change = Math.max(change, 1 - Math.abs(dot));
+            }
+            double[] tmp = v; v = next; next = tmp;
+            if (change < SUBSPACE_TOLERANCE) break;
+        }
+
+        // F = V'SV = (X'V)'(X'V) / (T - 1)
+        project(x, v, xtv, n, len, k);
+        double[] f = new double[k * k];
+        for (int t = 0; t < len; t++) {
+            int to = t * k;
+            for (int a = 0; a < k; a++) {
+                for (int b = 0; b < k; b++) f[a * k + b] += xtv[to + a] * xtv[to + b] * scale;
+            }
+        }
+
+        // D = diag(S) - diag(V F V'), floored so Σ stays positive definite
+        double[] specific = new double[n];
+        for (int i = 0; i < n; i++) {
+            int xo = i * len, vo = i * k;
+            double total = 0;
+            for (int t = 0; t < len; t++) total += x[xo + t] * x[xo + t];
+            total *= scale;
+
+            double common = 0;
+            for (int a = 0; a < k; a++) {
+                for (int b = 0; b < k; b++) common += v[vo + a] * f[a * k + b] * v[vo + b];
+            }
+            specific[i] = Math.max(total - common, SPECIFIC_FLOOR * total);
+        }
+        return new FactorRiskModel(n, k, v, f, specific);
+    }
+
+    // out = X'V (T x k)
+    private static void project(double[] x, double[] v, double[] out, int n, int len, int k) {
+        Arrays.fill(out, 0);
+        for (int i = 0; i < n; i++) {
+            int xo = i * len, vo = i * k;
+            for (int t = 0; t < len; t++) {
+                double xi = x[xo + t];
+                int to = t * k;
+                for (int a = 0; a < k; a++) out[to + a] += xi * v[vo + a];
+            }
+        }
+    }
+
+    // modified Gram-Schmidt on the k columns of a row-major n x k matrix
+    private static void orthonormalize(double[] v, int n, int k) {
+        for (int a = 0; a < k; a++) {
+            for (int b = 0; b < a; b++) {
+                double dot = 0;
+                for (int i = 0; i < n; i++) dot += v[i * k + a] * v[i * k + b];
+                for (int i = 0; i < n; i++) v[i * k + a] -= dot * v[i * k + b];
+            }
+            double norm = 0;
+            for (int i = 0; i < n; i++) norm += v[i * k + a] * v[i * k + a];
+            norm = Math.sqrt(norm);
+            if (norm == 0) continue;
+            for (int i = 0; i < n; i++) v[i * k + a] /= norm;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.portfolioai.service;
+
+import java.util.Arrays;
+
+/**
+ * Risk-budgeting weights by damped Newton (Spinu, 2013).
+ *
+ * Minimises the self-concordant f(y) = 1/2 y'Cy - sum(b_i ln y_i) on the
+ * correlation matrix C (risk shares do not change under that rescaling), then
+ * maps y back to weights that sum to 1. Damping by the Newton decrement keeps y
+ * positive and gives quadratic convergence, typically in well under 20 steps.
+ * Each step is one Cholesky solve in scratch space allocated once per call.
+ * Stops when every relative risk contribution is within the tolerance of its budget.
+ *
+ * If that portfolio breaks the ConstraintModel, the constrained risk-budgeting
+ * problem (Richard and Roncalli, 2019) is solved instead:
+ *   minimize 1/2 w'Σw - c * sum(b_i ln w_i)  over the constraint set,
+ * with c chosen so that the unconstrained minimiser is the budget portfolio
+ * found above (so both phases solve the same problem). Solved by projected gradient
+ * with Barzilai-Borwein steps and Armijo backtracking, which keeps w > 0.
+ * Risk contributions then match the budgets as closely as the limits allow.
+ */
+public final class RiskParitySolver {
+
+    public static final class Result {
+        public final double[] weights;
+        /** Share of total portfolio variance per asset (sums to 1). */
+        public final double[] riskContributions;
+        public final int iterations;
+        public final double residual;
+        public final boolean converged;
+
+        Result(double[] weights, double[] riskContributions, int iterations, double residual, boolean converged) {
+            this.weights = weights;
+            this.riskContributions = riskContributions;
+            this.iterations = iterations;
+            this.residual = residual;
+            this.converged = converged;
+        }
+    }
+
+    // Newton decrement above which steps are damped: 0.95 * (3 - sqrt(5)) / 2
+    private static final double DAMPING_THRESHOLD = 0.95 * (3 - Math.sqrt(5)) / 2;
+
+    private static final double ARMIJO = 1e-4;
+
+    private final double tolerance;
+    private final int maxIterations;
+    private final int maxConstrainedIterations;
+
+    public RiskParitySolver(double tolerance, int maxIterations, int maxConstrainedIterations) {
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.maxConstrainedIterations = maxConstrainedIterations;
+    }
+
+    /** Equal risk budgets. */
+    public Result solve(double[][] cov, ConstraintModel constraints) {
+        double[] budgets = new double[cov.length];
+        Arrays.fill(budgets, 1.0 / cov.length);
+        return solve(cov, budgets, constraints);
+    }
+
+    /**
+     * @param budgets target risk share per asset (positive, sums to 1)
+     * @param constraints optional; when the budget portfolio breaks them, the
+     *                    constrained problem is solved (see class comment)
+     * @return weights, their risk contributions, residual = max |contribution - budget|
+     *         (above 0 when the limits bind) and converged = the problem actually
+     *         solved met its stopping rule
+     */
+    public Result solve(double[][] cov, double[] budgets, ConstraintModel constraints) {
+        int n = cov.length;
+
+        // scale to correlations: C = D^-1/2 Σ D^-1/2
+        double[] vol = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (!(cov[i][i] > 0)) throw new IllegalArgumentException("asset " + i + " has no variance");
+            vol[i] = Math.sqrt(cov[i][i]);
+        }
+        double[] c = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) c[i * n + j] = cov[i][j] / (vol[i] * vol[j]);
+        }
+
+        double[] y = new double[n];
+        double[] cy = new double[n];
+        double[] grad = new double[n];
+        double[] step = new double[n];
+        double[] hess = new double[n * n];
+
+        // equal weights scaled to unit volatility
+        Arrays.fill(y, 1.0);
+        multiply(c, y, cy);
+        double scale = 1.0 / Math.sqrt(dot(y, cy));
+        for (int i = 0; i < n; i++) {
+            y[i] *= scale;
+            cy[i] *= scale;
+        }
+
+        int iter = 0;
+        double residual = budgetGap(y, cy, budgets);
+        while (residual >= tolerance && iter < maxIterations) {
+            iter++;
+
+            // gradient Cy - b/y, Hessian C + diag(b/y^2)
+            for (int i = 0; i < n; i++) grad[i] = cy[i] - budgets[i] / y[i];
+            System.arraycopy(c, 0, hess, 0, n * n);
+            for (int i = 0; i < n; i++) hess[i * n + i] += budgets[i] / (y[i] * y[i]);
+            choleskySolve(hess, n, grad, step);
+
+            double decrement = Math.sqrt(Math.max(0, dot(grad, step)));
+            double t = decrement > DAMPING_THRESHOLD ? 1.0 / (1.0 + decrement) : 1.0;
+            for (int i = 0; i < n; i++) y[i] -= t * step[i];
+
+            multiply(c, y, cy);
+            residual = budgetGap(y, cy, budgets);
+        }
+
+        // back to the original scale, weights summing to 1
+        double sum = 0;
+        double[] w = new double[n];
+        for (int i = 0; i < n; i++) {
+            w[i] = y[i] / vol[i];
+            sum += w[i];
+        }
+        for (int i = 0; i < n; i++) w[i] /= sum;
+
+        boolean converged = residual < tolerance;
+        int totalIter = iter;
+        if (constraints != null && constraints.violation(w) > 1e-12) {
+            Constrained res = solveConstrained(cov, budgets, constraints, w);
+            w = res.weights;
+            totalIter += res.iterations;
+            converged = converged && res.converged;
+        }
+
+        double[] rc = riskContributions(cov, w);
+        double finalGap = 0;
+        for (int i = 0; i < n; i++) finalGap = Math.max(finalGap, Math.abs(rc[i] - budgets[i]));
+
+        return new Result(w, rc, totalIter, finalGap, converged);
+    }
+
+    private record Constrained(double[] weights, int iterations, boolean converged) { }
+
+    /**
+     * Projected gradient on g(w) = 1/2 w'Σw / v - sum(b ln w) over the constraint set,
+     * v = variance of the (sum 1) budget portfolio. Its unconstrained optimum has
+     * w_i (Σw)_i = v b_i, i.e. it is exactly that portfolio, and the scaling keeps
+     * the gradient, and so the tolerance, O(1).
+     */
+    private Constrained solveConstrained(double[][] cov, double[] budgets, ConstraintModel constraints,
+                                         double[] budgetWeights) {
+        int n = budgets.length;
+        double[] sw = new double[n];
+        multiply(cov, budgetWeights, sw);
+        double var = dot(budgetWeights, sw);
+        double inv = var > 0 ? 1.0 / var : 1.0;
+
+        // feasible, strictly positive start: projection of the budget portfolio, mixed towards the default start
+        double[] w = new double[n];
+        constraints.project(budgetWeights, w);
+        double[] start = constraints.feasibleStart();
+        for (int attempt = 0; attempt < 60 && min(w) <= 0; attempt++) {
+            for (int i = 0; i < n; i++) w[i] = 0.5 * (w[i] + start[i]);
+        }
+        if (min(w) <= 0) return new Constrained(w, 0, false);
+
+        double[] grad = new double[n];
+        double[] prevW = new double[n];
+        double[] prevGrad = new double[n];
+        double[] next = new double[n];
+        double[] nextGrad = new double[n];
+
+        double f = barrierObjective(cov, budgets, inv, w, grad);
+        double step = 1.0;
+        int iter = 0;
+        boolean converged = false;
+
+        while (iter < maxConstrainedIterations) {
+            iter++;
+
+            // Armijo backtracking along the projection arc; log terms keep next > 0.
+            // Stationarity is |P(w - s g) - w| / s relative to |g|; it only grows as s
+            // shrinks, so meeting the tolerance at any trial step is conclusive.
+            double gradScale = 1;
+            for (int i = 0; i < n; i++) gradScale = Math.max(gradScale, Math.abs(grad[i]));
+            boolean done = false;
+            double fNext;
+            while (true) {
+                for (int i = 0; i < n; i++) next[i] = w[i] - step * grad[i];
+                constraints.project(next, next);
+                double moved = 0, decrease = 0;
+                for (int i = 0; i < n; i++) {
+                    moved = Math.max(moved, Math.abs(next[i] - w[i]));
+                    decrease += grad[i] * (w[i] - next[i]);
+                }
+                fNext = min(next) > 0 ? barrierObjective(cov, budgets, inv, next, nextGrad) : Double.POSITIVE_INFINITY;
+                if (moved / step < tolerance * gradScale && fNext < Double.POSITIVE_INFINITY) {
+                    done = true;
+                    break;
+                }
+                // slack of a few ulps: near the optimum f stops changing in double precision
+                if (fNext <= f - ARMIJO * decrease + 1e-15 * Math.abs(f)) break;
+                step *= 0.5;
+                if (step < 1e-20) return new Constrained(w, iter, false); // no descent left: stalled
+            }
+
+            System.arraycopy(w, 0, prevW, 0, n);
+            System.arraycopy(grad, 0, prevGrad, 0, n);
+            System.arraycopy(next, 0, w, 0, n);
+            System.arraycopy(nextGrad, 0, grad, 0, n);
+            f = fNext;
+            if (done) {
+                converged = true;
+                break;
+            }
+
+            // Barzilai-Borwein step for the next iteration
+            double ss = 0, sy = 0;
+            for (int i = 0; i < n; i++) {
+                double ds = w[i] - prevW[i], dy = grad[i] - prevGrad[i];
+                ss += ds * ds;
+                sy += ds * dy;
+            }
+            step = sy > 0 ? ss / sy : 2 * step;
+        }
+        return new Constrained(w, iter, converged);
+    }
+
+    // 1/2 w'Σw * inv - sum(b ln w), gradient into grad
+    private static double barrierObjective(double[][] cov, double[] budgets, double inv,
+                                           double[] w, double[] grad) {
+        multiply(cov, w, grad);
+        double f = 0;
+        for (int i = 0; i < w.length; i++) {
+            double sw = grad[i] * inv;
+            f += 0.5 * w[i] * sw - budgets[i] * Math.log(w[i]);
+            grad[i] = sw - budgets[i] / w[i];
+        }
+        return f;
+    }
+
+    private static double min(double[] x) {
+        double m = Double.POSITIVE_INFINITY;
+        for (double v : x) m = Math.min(m, v);
+        return m;
+    }
+
+    /** w_i (Σw)_i / w'Σw for each asset. */
+    public static double[] riskContributions(double[][] cov, double[] w) {
+        int n = w.length;
+        double[] sw = new double[n];
+        multiply(cov, w, sw);
+        double var = 0;
+        for (int i = 0; i < n; i++) var += w[i] * sw[i];
+
+        double[] rc = new double[n];
+        if (var <= 0) return rc;
+        for (int i = 0; i < n; i++) rc[i] = w[i] * sw[i] / var;
+        return rc;
+    }
+
+    // max |relative risk contribution - budget|, scale-free so y needs no normalising
+    private static double budgetGap(double[] y, double[] cy, double[] budgets) {
+        double var = dot(y, cy);
+        double gap = 0;
+        for (int i = 0; i < y.length; i++) gap = Math.max(gap, Math.abs(y[i] * cy[i] / var - budgets[i]));
+        return gap;
+    }
+
+    // solves A x = b in place (A is overwritten by its Cholesky factor)
+    private static void choleskySolve(double[] a, int n, double[] b, double[] x) {
+        for (int j = 0; j < n; j++) {
+            int rj = j * n;
+            double d = a[rj + j];
+            for (int k = 0; k < j; k++) d -= a[rj + k] * a[rj + k];
+            if (!(d > 0)) throw new IllegalStateException("covariance is not positive definite");
+            d = Math.sqrt(d);
+            a[rj + j] = d;
+            for (int i = j + 1; i < n; i++) {
+                int ri = i * n;
+                double s = a[ri + j];
+                for (int k = 0; k < j; k++) s -= a[ri + k] * a[rj + k];
+                a[ri + j] = s / d;
+            }
+        }
+        for (int i = 0; i < n; i++) {          // L z = b
+            int ri = i * n;
+            double s = b[i];
+            for (int k = 0; k < i; k++) s -= a[ri + k] * x[k];
+            x[i] = s / a[ri + i];
+        }
+        for (int i = n - 1; i >= 0; i--) {     // L' x = z
+            double s = x[i];
+            for (int k = i + 1; k < n; k++) s -= a[k * n + i] * x[k];
+            x[i] = s / a[i * n + i];
+        }
+    }
+
+    private static void multiply(double[] c, double[] x, double[] out) {
+        int n = x.length;
+        for (int i = 0; i < n; i++) {
+            int off = i * n;
+            double s = 0;
+            for (int j = 0; j < n; j++) s += c[off + j] * x[j];
+            out[i] = s;
+        }
+    }
+
+    private static void multiply(double[][] cov, double[] x, double[] out) {
+        for (int i = 0; i < x.length; i++) {
+            double[] row = cov[i];
+            double s = 0;
+            for (int j = 0; j < x.length; j++) s += row[j] * x[j];
+            out[i] = s;
+        }
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double s = 0;
+        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        return s;
+    }
+}
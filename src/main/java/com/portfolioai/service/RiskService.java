@@ -16,6 +16,9 @@ public class RiskService {
         public Map<String, Double> constraints;
     }
 
+    // allowed deviation around the tier's equity target
+    private static final double EQUITY_BAND = 0.10;
+
     public RiskResult profile(QuizAnswers a) {
         int score = 0;
 
@@ -48,19 +51,24 @@ public class RiskService {
         };
 
         String tier;
-        Map<String, Double> constraints = new HashMap<>();
+        double stocks;
 
         if (score <= 2) {
             tier = "conservative";
-            constraints.put("stocks", 0.4);
+            stocks = 0.4;
         } else if (score <= 5) {
             tier = "balanced";
-            constraints.put("stocks", 0.7);
+            stocks = 0.7;
         } else {
             tier = "aggressive";
-            constraints.put("stocks", 0.9);
+            stocks = 0.9;
         }
 
+        // Equity target as group bounds the optimizers understand
+        Map<String, Double> constraints = new HashMap<>();
+        constraints.put("eq_min", Math.max(0.0, stocks - EQUITY_BAND));
+        constraints.put("eq_max", Math.min(1.0, stocks + EQUITY_BAND));
+
         RiskResult result = new RiskResult();
         result.score = score;
         result.tier = tier;
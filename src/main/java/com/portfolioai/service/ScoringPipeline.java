@@ -0,0 +1,211 @@
+package com.portfolioai.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scores every stock in a MetricsSnapshot as a weighted sum of normalized
+ * factor columns (read from its MetricsTable), with one set of factor weights
+ * per risk tier.
+ *
+ * The configuration is immutable. Factor columns are extracted and normalized
+ * once per snapshot, and the score array for each tier is computed once per
+ * snapshot and then shared: callers must not modify it. Nothing here writes
+ * to the StockMetrics, so concurrent requests cannot interfere.
+ *
+ * Only rows with a complete window for the scoring horizon are scored (see
+ * MetricsTable.complete): a ticker with one year of history is not ranked
+ * against three-year figures. Columns are normalized over those rows alone and
+ * every other row scores negative infinity; callers should also treat them as
+ * ineligible (scoredRows). Lifetime scoring scores every row, and so does a
+ * snapshot in which no row covers the horizon: horizonUsed reports which.
+ */
+public final class ScoringPipeline {
+
+    public enum Factor {
+        RETURN(MetricsTable.Column.RETURN, 1),
+        VOLATILITY(MetricsTable.Column.VOLATILITY, -1),   // lower is better
+        DRAWDOWN(MetricsTable.Column.DRAWDOWN, 1),        // maxDrawdown is <= 0, closer to 0 is better
+        MOMENTUM(MetricsTable.Column.MOMENTUM, 1),
+        STABILITY(MetricsTable.Column.STABILITY, 1);
+
+        private final MetricsTable.Column column;
+        private final int direction;
+
+        Factor(MetricsTable.Column column, int direction) {
+            this.column = column;
+            this.direction = direction;
+        }
+
+        // normalized over the given rows, oriented so that higher is always better; other rows are 0
+        double[] normalized(MetricsTable table, String horizon, boolean[] rows, NormalizationUtil.Method normalizer) {
+            double[] raw = table.column(column, horizon);
+            int m = 0;
+            for (boolean r : rows) if (r) m++;
+            double[] picked = new double[m];
+            for (int i = 0, j = 0; i < raw.length; i++) if (rows[i]) picked[j++] = direction * raw[i];
+
+            double[] norm = normalizer.apply(picked);
+            if (m == raw.length) return norm;
+            double[] out = new double[raw.length];
+            for (int i = 0, j = 0; i < raw.length; i++) if (rows[i]) out[i] = norm[j++];
+            return out;
+        }
+
+        public String label() {
+            return name().toLowerCase();
+        }
+
+        public static Factor parse(String s) {
+            return switch (s.trim().toLowerCase()) {
+                case "return", "total_return" -> RETURN;
+                case "volatility", "vol" -> VOLATILITY;
+                case "drawdown", "max_drawdown" -> DRAWDOWN;
+                case "momentum" -> MOMENTUM;
+                case "stability" -> STABILITY;
+                default -> throw new IllegalArgumentException("Unknown scoring factor: " + s);
+            };
+        }
+    }
+
+    private record Cache(long version, String horizon, boolean[] rows,
+                         Map<Factor, double[]> columns, Map<String, double[]> scores) { }
+
+    private final NormalizationUtil.Method normalizer;
+    private final String horizon; // e.g. "3y"; null = lifetime metrics
+    private final Map<String, Map<Factor, Double>> weightsByTier;
+    private final AtomicReference<Cache> cache = new AtomicReference<>();
+
+    /**
+     * @param horizon trailing window the return / volatility / drawdown / stability
+     *                factors are read from (see StockMetrics.horizons); null or blank = lifetime
+     */
+    public ScoringPipeline(NormalizationUtil.Method normalizer, String horizon,
+                           Map<String, Map<Factor, Double>> weightsByTier) {
+        this.normalizer = normalizer;
+        this.horizon = horizon == null || horizon.isBlank() ? null : horizon.trim().toLowerCase();
+        Map<String, Map<Factor, Double>> copy = new LinkedHashMap<>();
+        for (var e : weightsByTier.entrySet()) {
+            if (e.getValue().isEmpty()) throw new IllegalArgumentException("No scoring factors for tier " + e.getKey());
+            copy.put(e.getKey(), Map.copyOf(new EnumMap<>(e.getValue())));
+        }
+        this.weightsByTier = Map.copyOf(copy);
+    }
+
+    /**
+     * Parses "return:0.3,stability:0.7" into factor weights.
+     */
+    public static Map<Factor, Double> parseWeights(String spec) {
+        Map<Factor, Double> out = new EnumMap<>(Factor.class);
+        if (spec == null) return out;
+        for (String part : spec.split(",")) {
+            if (part.isBlank()) continue;
+            String[] kv = part.split(":");
+            if (kv.length != 2) throw new IllegalArgumentException("Bad scoring weight: " + part);
+            out.merge(Factor.parse(kv[0]), Double.parseDouble(kv[1].trim()), Double::sum);
+        }
+        return out;
+    }
+
+    public NormalizationUtil.Method normalizer() {
+        return normalizer;
+    }
+
+    /** Scoring horizon, or null for lifetime metrics. */
+    public String horizon() {
+        return horizon;
+    }
+
+    /**
+     * Horizon the snapshot is actually scored on: the configured one, or null
+     * (lifetime) if no row in the snapshot has a complete window for it.
+     */
+    public String horizonUsed(MetricsSnapshot snapshot) {
+        return cacheFor(snapshot).horizon();
+    }
+
+    /**
+     * Throws IllegalArgumentException unless the scoring horizon is lifetime or
+     * one of the computed horizons (metrics.horizons).
+     */
+    public void requireHorizonIn(String[] computed) {
+        if (horizon == null) return;
+        List<String> names = new ArrayList<>();
+        for (String h : computed) names.add(h.trim().toLowerCase());
+        if (!names.contains(horizon)) {
+            throw new IllegalArgumentException("Scoring horizon " + horizon
+                    + " is not computed (metrics.horizons: " + String.join(", ", names) + ")");
+        }
+    }
+
+    public Map<Factor, Double> weights(String tier) {
+        Map<Factor, Double> w = weightsByTier.get(tier);
+        if (w == null) throw new IllegalArgumentException("No scoring profile for tier " + tier);
+        return w;
+    }
+
+    /** Score per snapshot position for the tier (higher is better). Shared: do not modify. */
+    public double[] scores(MetricsSnapshot snapshot, String tier) {
+        Map<Factor, Double> weights = weights(tier);
+        Cache c = cacheFor(snapshot);
+        return c.scores().computeIfAbsent(tier, t -> blend(c.columns(), weights, c.rows()));
+    }
+
+    /** Snapshot positions that get a real score (complete window for the horizon). Shared: do not modify. */
+    public boolean[] scoredRows(MetricsSnapshot snapshot) {
+        return cacheFor(snapshot).rows();
+    }
+
+    /** "0.3*return + 0.7*stability" */
+    public String describe(String tier) {
+        StringBuilder sb = new StringBuilder();
+        for (Factor f : Factor.values()) {
+            Double w = weights(tier).get(f);
+            if (w == null) continue;
+            if (sb.length() > 0) sb.append(" + ");
+            sb.append(w).append('*').append(f.label());
+        }
+        return sb.toString();
+    }
+
+    // ---- helpers ----
+
+    private Cache cacheFor(MetricsSnapshot snapshot) {
+        Cache c = cache.get();
+        if (c != null && c.version() == snapshot.getVersion()) return c;
+
+        MetricsTable table = snapshot.table();
+        String used = table.hasHorizon(horizon) ? horizon : null;
+        if (horizon != null && used == null) {
+            System.out.println("WARN: No ticker has " + horizon + " of history in snapshot "
+                    + snapshot.getVersion() + "; scoring on lifetime metrics");
+        }
+        boolean[] rows = table.complete(used);
+        Map<Factor, double[]> columns = new EnumMap<>(Factor.class);
+        for (Map<Factor, Double> w : weightsByTier.values()) {
+            for (Factor f : w.keySet()) columns.computeIfAbsent(f, k -> k.normalized(table, used, rows, normalizer));
+        }
+
+        Cache fresh = new Cache(snapshot.getVersion(), used, rows, columns, new ConcurrentHashMap<>());
+        // keep whichever is newer if another request raced us
+        cache.accumulateAndGet(fresh, (old, neu) -> old != null && old.version() >= neu.version() ? old : neu);
+        return fresh;
+    }
+
+    private static double[] blend(Map<Factor, double[]> columns, Map<Factor, Double> weights, boolean[] rows) {
+        int n = rows.length;
+        double[] out = new double[n];
+        for (var e : weights.entrySet()) {
+            double[] col = columns.get(e.getKey());
+            double w = e.getValue();
+            for (int i = 0; i < n; i++) out[i] += w * col[i];
+        }
+        for (int i = 0; i < n; i++) if (!rows[i]) out[i] = Double.NEGATIVE_INFINITY;
+        return out;
+    }
+}
@@ -0,0 +1,181 @@
+package com.portfolioai.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming parser for Stooq daily CSV (Date,Open,High,Low,Close[,Volume]).
+ *
+ * Works directly on the raw bytes of the response: dates and prices are decoded
+ * in place, so no String is created per line or field. Rows without a valid date
+ * or a positive close are skipped; missing open/high/low fall back to the close
+ * and a missing volume to 0.
+ */
+public final class StooqCsvParser {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    // field indexes in a Stooq row
+    private static final int DATE = 0, OPEN = 1, HIGH = 2, LOW = 3, CLOSE = 4, VOLUME = 5;
+
+    // exact powers of ten (10^22 is the largest exactly representable)
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    private StooqCsvParser() {
+    }
+
+    /** Parses the whole stream (header line first) into bars. Does not close the stream. */
+    public static PriceBars parse(InputStream in) throws IOException {
+        PriceBars bars = new PriceBars(1024);
+        byte[] buf = new byte[BUFFER_BYTES];
+        int len = 0;
+        boolean header = true;
+
+        while (true) {
+            int read = in.read(buf, len, buf.length - len);
+            boolean eof = read < 0;
+            if (!eof) len += read;
+
+            // consume every complete line in the buffer
+            int start = 0;
+            for (int i = start; i < len; i++) {
+                if (buf[i] != '\n') continue;
+                if (header) header = false;
+                else parseRow(buf, start, i, bars);
+                start = i + 1;
+            }
+
+            if (eof) {
+                if (start < len && !header) parseRow(buf, start, len, bars);
+                return bars;
+            }
+
+            // keep the partial line, growing the buffer if one line fills it
+            len -= start;
+            System.arraycopy(buf, start, buf, 0, len);
+            if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+    }
+
+    private static void parseRow(byte[] b, int from, int to, PriceBars out) {
+        if (to > from && b[to - 1] == '\r') to--;
+        if (to <= from) return;
+
+        int day = Integer.MIN_VALUE;
+        double o = Double.NaN, h = Double.NaN, l = Double.NaN, c = Double.NaN, v = Double.NaN;
+
+        int field = 0;
+        int fs = from;
+        for (int i = from; i <= to && field <= VOLUME; i++) {
+            if (i < to && b[i] != ',') continue;
+            switch (field) {
+                case DATE -> day = parseEpochDay(b, fs, i);
+                case OPEN -> o = parseDouble(b, fs, i);
+                case HIGH -> h = parseDouble(b, fs, i);
+                case LOW -> l = parseDouble(b, fs, i);
+                case CLOSE -> c = parseDouble(b, fs, i);
+                case VOLUME -> v = parseDouble(b, fs, i);
+                default -> { }
+            }
+            field++;
+            fs = i + 1;
+        }
+
+        if (day == Integer.MIN_VALUE || !(c > 0)) return;
+        out.add(day,
+                Double.isNaN(o) ? c : o,
+                Double.isNaN(h) ? c : h,
+                Double.isNaN(l) ? c : l,
+                c,
+                Double.isNaN(v) ? 0 : v);
+    }
+
+    /** yyyy-MM-dd -> epoch day, or Integer.MIN_VALUE if malformed. */
+    static int parseEpochDay(byte[] b, int from, int to) {
+        while (from < to && b[from] == ' ') from++;
+        while (to > from && b[to - 1] == ' ') to--;
+        if (to - from != 10 || b[from + 4] != '-' || b[from + 7] != '-') return Integer.MIN_VALUE;
+
+        int y = digits(b, from, from + 4);
+        int m = digits(b, from + 5, from + 7);
+        int d = digits(b, from + 8, from + 10);
+        if (y < 0 || m < 1 || m > 12 || d < 1 || d > 31) return Integer.MIN_VALUE;
+        return (int) epochDay(y, m, d);
+    }
+
+    /**
+     * Plain decimal -> double without allocating. Falls back to Double.parseDouble
+     * for exponents or very long mantissas. Returns NaN for blanks, "null", junk.
+     */
+    static double parseDouble(byte[] b, int from, int to) {
+        while (from < to && b[from] == ' ') from++;
+        while (to > from && b[to - 1] == ' ') to--;
+        if (from >= to) return Double.NaN;
+
+        int i = from;
+        boolean neg = false;
+        if (b[i] == '-' || b[i] == '+') {
+            neg = b[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        for (; i < to; i++) {
+            byte ch = b[i];
+            if (ch >= '0' && ch <= '9') {
+                if (digits >= 15) return slowParse(b, from, to);
+                mantissa = mantissa * 10 + (ch - '0');
+                if (mantissa != 0) digits++;
+                if (dot) scale++;
+            } else if (ch == '.' && !dot) {
+                dot = true;
+            } else if (ch == 'e' || ch == 'E') {
+                return slowParse(b, from, to);
+            } else {
+                return Double.NaN;
+            }
+        }
+
+        // mantissa < 2^53 and 10^scale exact -> one correctly rounded division
+        double value = scale == 0 ? mantissa
+                : scale <= 22 ? mantissa / POW10[scale] : slowParse(b, from, to);
+        return neg ? -value : value;
+    }
+
+    private static double slowParse(byte[] b, int from, int to) {
+        try {
+            return Double.parseDouble(new String(b, from, to - from, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static int digits(byte[] b, int from, int to) {
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    // Proleptic Gregorian date -> days since 1970-01-01 (same as LocalDate.toEpochDay)
+    private static long epochDay(int y, int m, int d) {
+        y -= m <= 2 ? 1 : 0;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153L * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+}
@@ -0,0 +1,113 @@
+package com.portfolioai.service;
+
+/**
+ * Picks the k best indices by score with bounded min-heaps of primitive
+ * indices, optionally keeping at most `cap` per group (sector).
+ *
+ * An index that is not among the `cap` best of its own group can never be
+ * picked, so each group keeps a heap of size cap and the final k are chosen
+ * from the union of those heaps: O(n log cap + m log k) with no sorting of the
+ * full list. Ties go to the lower index.
+ */
+public final class TopKSelector {
+
+    private TopKSelector() {
+    }
+
+    /** Top k eligible indices, best first. */
+    public static int[] select(double[] scores, boolean[] eligible, int k) {
+        return select(scores, eligible, k, null, 0, 0);
+    }
+
+    /**
+     * @param groups     group id per index (ignored when cap <= 0)
+     * @param groupCount number of distinct group ids
+     * @param cap        max picks per group; <= 0 means no limit
+     * @return up to k indices, best first (fewer if caps or eligibility leave too few)
+     */
+    public static int[] select(double[] scores, boolean[] eligible, int k,
+                               int[] groups, int groupCount, int cap) {
+        int n = scores.length;
+        if (k <= 0) return new int[0];
+
+        Heap top = new Heap(scores, k);
+        if (groups == null || cap <= 0 || cap >= k) {
+            for (int i = 0; i < n; i++) if (eligible[i]) top.offer(i);
+            return top.drainBestFirst();
+        }
+
+        Heap[] perGroup = new Heap[groupCount];
+        for (int i = 0; i < n; i++) {
+            if (!eligible[i]) continue;
+            int g = groups[i];
+            if (perGroup[g] == null) perGroup[g] = new Heap(scores, cap);
+            perGroup[g].offer(i);
+        }
+        for (Heap h : perGroup) {
+            if (h == null) continue;
+            for (int j = 0; j < h.size; j++) top.offer(h.items[j]);
+        }
+        return top.drainBestFirst();
+    }
+
+    // min-heap (worst at the root) of at most `capacity` indices
+    private static final class Heap {
+        final double[] scores;
+        final int[] items;
+        int size;
+
+        Heap(double[] scores, int capacity) {
+            this.scores = scores;
+            this.items = new int[capacity];
+        }
+
+        void offer(int idx) {
+            if (size < items.length) {
+                items[size] = idx;
+                siftUp(size++);
+            } else if (better(idx, items[0])) {
+                items[0] = idx;
+                siftDown(0, size);
+            }
+        }
+
+        int[] drainBestFirst() {
+            int[] out = new int[size];
+            for (int n = size; n > 0; n--) {
+                out[n - 1] = items[0];
+                items[0] = items[n - 1];
+                siftDown(0, n - 1);
+            }
+            size = 0;
+            return out;
+        }
+
+        boolean better(int a, int b) {
+            return scores[a] > scores[b] || (scores[a] == scores[b] && a < b);
+        }
+
+        void siftUp(int i) {
+            int x = items[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!better(items[parent], x)) break;
+                items[i] = items[parent];
+                i = parent;
+            }
+            items[i] = x;
+        }
+
+        void siftDown(int i, int n) {
+            int x = items[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= n) break;
+                if (child + 1 < n && better(items[child], items[child + 1])) child++;
+                if (!better(x, items[child])) break;
+                items[i] = items[child];
+                i = child;
+            }
+            items[i] = x;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.portfolioai.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable, compact view of the stock universe: a sorted array of interned
+ * upper-case tickers, a tag id per ticker and the custom sector member lists
+ * (as ticker positions, in file order).
+ *
+ * Lookups binary-search the ticker array and compare trimmed, upper-cased
+ * characters in place, so isAllowed / tag never allocate. The index can be
+ * written to and read back from a small binary file (see UniverseService.main)
+ * so startup does not need to parse the CSV / JSON sources.
+ *
+ * Binary layout (DataOutput): int magic, int version, int tickers, tickers as
+ * UTF, one short tag id per ticker, int sectors, then per sector its name as
+ * UTF, int members and the members' ticker positions.
+ */
+public final class UniverseIndex {
+
+    /** Tag of tickers that are in no custom sector. */
+    public static final String DEFAULT_TAG = "sp500";
+
+    private static final int MAGIC = 0x554E5831; // "UNX1"
+    private static final int VERSION = 1;
+
+    private final String[] tickers;      // sorted, interned, upper-case
+    private final short[] tagIds;        // 0 = DEFAULT_TAG, k = sectors[k - 1]
+    private final String[] sectors;      // lower-case, file order
+    private final int[][] members;       // per sector: ticker positions, file order
+
+    private final Set<String> tickerSet;
+    private final Map<String, List<String>> sectorMap;
+    private volatile Map<String, String> tagMap;
+
+    private UniverseIndex(String[] tickers, short[] tagIds, String[] sectors, int[][] members) {
+        this.tickers = tickers;
+        this.tagIds = tagIds;
+        this.sectors = sectors;
+        this.members = members;
+        this.tickerSet = new TickerSet();
+
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        for (int s = 0; s < sectors.length; s++) {
+            String[] names = new String[members[s].length];
+            for (int j = 0; j < names.length; j++) names[j] = tickers[members[s][j]];
+            map.put(sectors[s], List.of(names));
+        }
+        this.sectorMap = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Builds the index from raw source lists. Tickers are trimmed and
+     * upper-cased, sector names lower-cased; blanks are skipped. A ticker in
+     * several custom sectors is tagged with the first one.
+     */
+    public static UniverseIndex build(List<String> sp500, Map<String, List<String>> sectorSource) {
+        TreeSet<String> all = new TreeSet<>();
+        for (String t : sp500) addNormalized(all, t);
+
+        Map<String, List<String>> sectorLists = new LinkedHashMap<>();
+        for (var e : sectorSource.entrySet()) {
+            String key = e.getKey() == null ? "" : e.getKey().trim().toLowerCase();
+            if (key.isEmpty() || e.getValue() == null) continue;
+            TreeSet<String> seen = new TreeSet<>();
+            List<String> list = sectorLists.computeIfAbsent(key, k -> new ArrayList<>());
+            for (String t : e.getValue()) {
+                if (addNormalized(seen, t)) list.add(normalize(t));
+            }
+            all.addAll(seen);
+        }
+
+        String[] tickers = new String[all.size()];
+        int i = 0;
+        for (String t : all) tickers[i++] = t.intern();
+
+        String[] sectors = sectorLists.keySet().toArray(new String[0]);
+        for (int s = 0; s < sectors.length; s++) sectors[s] = sectors[s].intern();
+        int[][] members = new int[sectors.length][];
+        short[] tagIds = new short[tickers.length];
+        for (int s = 0; s < sectors.length; s++) {
+            List<String> list = sectorLists.get(sectors[s]);
+            members[s] = new int[list.size()];
+            for (int j = 0; j < list.size(); j++) {
+                int pos = Arrays.binarySearch(tickers, list.get(j));
+                members[s][j] = pos;
+                if (tagIds[pos] == 0) tagIds[pos] = (short) (s + 1);
+            }
+        }
+        return new UniverseIndex(tickers, tagIds, sectors, members);
+    }
+
+    public static UniverseIndex read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not a universe index");
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Unsupported universe index version " + version);
+
+        String[] tickers = new String[in.readInt()];
+        for (int i = 0; i < tickers.length; i++) tickers[i] = in.readUTF().intern();
+        for (int i = 1; i < tickers.length; i++) {
+            if (tickers[i - 1].compareTo(tickers[i]) >= 0) throw new IOException("Universe index is not sorted");
+        }
+        short[] tagIds = new short[tickers.length];
+        for (int i = 0; i < tagIds.length; i++) tagIds[i] = in.readShort();
+
+        String[] sectors = new String[in.readInt()];
+        int[][] members = new int[sectors.length][];
+        for (int s = 0; s < sectors.length; s++) {
+            sectors[s] = in.readUTF().intern();
+            members[s] = new int[in.readInt()];
+            for (int j = 0; j < members[s].length; j++) {
+                int pos = in.readInt();
+                if (pos < 0 || pos >= tickers.length) throw new IOException("Bad sector member in universe index");
+                members[s][j] = pos;
+            }
+        }
+        for (short id : tagIds) {
+            if (id < 0 || id > sectors.length) throw new IOException("Bad tag in universe index");
+        }
+        return new UniverseIndex(tickers, tagIds, sectors, members);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(tickers.length);
+        for (String t : tickers) out.writeUTF(t);
+        for (short id : tagIds) out.writeShort(id);
+        out.writeInt(sectors.length);
+        for (int s = 0; s < sectors.length; s++) {
+            out.writeUTF(sectors[s]);
+            out.writeInt(members[s].length);
+            for (int pos : members[s]) out.writeInt(pos);
+        }
+    }
+
+    public int size() {
+        return tickers.length;
+    }
+
+    /** Ticker at position i (sorted order). */
+    public String ticker(int i) {
+        return tickers[i];
+    }
+
+    /** Position of the ticker (trimmed, any case), or -1. Does not allocate. */
+    public int indexOf(String ticker) {
+        if (ticker == null) return -1;
+        int from = 0, to = ticker.length();
+        while (from < to && ticker.charAt(from) <= ' ') from++;
+        while (to > from && ticker.charAt(to - 1) <= ' ') to--;
+        if (from == to) return -1;
+
+        int lo = 0, hi = tickers.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compare(tickers[mid], ticker, from, to);
+            if (c < 0) lo = mid + 1;
+            else if (c > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    public boolean contains(String ticker) {
+        return indexOf(ticker) >= 0;
+    }
+
+    /** Tag of the ticker at position i: its custom sector, or DEFAULT_TAG. */
+    public String tag(int i) {
+        int id = tagIds[i];
+        return id == 0 ? DEFAULT_TAG : sectors[id - 1];
+    }
+
+    /** Tag for a ticker; DEFAULT_TAG if unknown. Does not allocate. */
+    public String tagOf(String ticker) {
+        int i = indexOf(ticker);
+        return i < 0 ? DEFAULT_TAG : tag(i);
+    }
+
+    public int sectorCount() {
+        return sectors.length;
+    }
+
+    /** Read-only set view over the ticker array (sorted iteration). */
+    public Set<String> tickerSet() {
+        return tickerSet;
+    }
+
+    /** Custom sector -> member tickers (file order). Read-only. */
+    public Map<String, List<String>> sectorMap() {
+        return sectorMap;
+    }
+
+    /** Ticker -> tag for every ticker; built on first use. Read-only. */
+    public Map<String, String> tagMap() {
+        Map<String, String> m = tagMap;
+        if (m == null) {
+            Map<String, String> built = new HashMap<>(tickers.length * 2);
+            for (int i = 0; i < tickers.length; i++) built.put(tickers[i], tag(i));
+            tagMap = m = Collections.unmodifiableMap(built);
+        }
+        return m;
+    }
+
+    // ---- helpers ----
+
+    private static String normalize(String t) {
+        return t.trim().toUpperCase();
+    }
+
+    private static boolean addNormalized(Set<String> out, String t) {
+        if (t == null || t.isBlank()) return false;
+        return out.add(normalize(t));
+    }
+
+    // t is normalized; key[from, to) is trimmed but may be lower case
+    private static int compare(String t, String key, int from, int to) {
+        int len = to - from;
+        int n = Math.min(t.length(), len);
+        for (int i = 0; i < n; i++) {
+            int c = t.charAt(i) - Character.toUpperCase(key.charAt(from + i));
+            if (c != 0) return c;
+        }
+        return t.length() - len;
+    }
+
+    private final class TickerSet extends AbstractSet<String> {
+        @Override
+        public boolean contains(Object o) {
+            // exact match, like any Set; use indexOf for lenient lookups
+            return o instanceof String s && Arrays.binarySearch(tickers, s) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return tickers.length;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private int i;
+
+                @Override
+                public boolean hasNext() {
+                    return i < tickers.length;
+                }
+
+                @Override
+                public String next() {
+                    if (i >= tickers.length) throw new NoSuchElementException();
+                    return tickers[i++];
+                }
+            };
+        }
+    }
+}
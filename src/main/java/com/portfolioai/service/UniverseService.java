@@ -1,173 +1,266 @@
 package com.portfolioai.service;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+/**
+ * Stock universe (SP500 + custom sectors) behind an immutable UniverseIndex.
+ *
+ * The index is loaded on first use: from the prebuilt classpath artefact
+ * universe/universe.idx if there is one (see main), else by parsing
+ * universe/sp500.csv and universe/custom_sectors.json. With universe.dir set,
+ * the two source files are read from that directory instead and re-read when
+ * they change; the new index is swapped in atomically, so readers see either
+ * the old or the new universe. A reload whose sources fail to parse, or that
+ * yields no tickers, keeps the current universe. Newly added tickers get
+ * metrics on the next snapshot refresh.
+ */
 @Service
 public class UniverseService {
 
-    private final Map<String, List<String>> sectorMap;
-    private final Set<String> sp500Tickers;
-    private final Set<String> allowedTickers;
+    private static final String SP500 = "sp500.csv";
+    private static final String SECTORS = "custom_sectors.json";
+    private static final String INDEX = "universe.idx";
+    private static final String CLASSPATH_DIR = "universe/";
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
 
-    public UniverseService() {
-        // Load everything safely (never throw for blank/missing files)
-        this.sectorMap = loadCustomSectorsSafe("universe/custom_sectors.json");
-        this.sp500Tickers = loadSp500Safe("universe/sp500.csv");
+    private final Path dir; // null = classpath
+    private final AtomicReference<UniverseIndex> index = new AtomicReference<>();
+    private volatile long sourceStamp;
 
-        // allowed = SP500 ∪ all sector lists
-        Set<String> allowed = new HashSet<>();
-        allowed.addAll(sp500Tickers);
-        for (List<String> lst : sectorMap.values()) allowed.addAll(lst);
-
-        // Normalize to uppercase
-        this.allowedTickers = allowed.stream()
-                .filter(Objects::nonNull)
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .map(String::toUpperCase)
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+    public UniverseService(@Value("${universe.dir:}") String dir) {
+        this.dir = dir == null || dir.isBlank() ? null : Paths.get(dir.trim());
+    }
 
-        // Optional logs
-        System.out.println("Universe loaded:");
-        System.out.println("- sectors: " + sectorMap.keySet());
-        System.out.println("- sp500 tickers: " + sp500Tickers.size());
-        System.out.println("- allowed tickers: " + allowedTickers.size());
+    /** Current universe; loaded on first call. */
+    public UniverseIndex getIndex() {
+        UniverseIndex u = index.get();
+        if (u != null) return u;
+        synchronized (this) {
+            if (index.get() == null) {
+                u = load();
+                index.set(u != null ? u : UniverseIndex.build(List.of(), Map.of()));
+            }
+            return index.get();
+        }
     }
 
     public Set<String> getAllowedTickers() {
-        return allowedTickers;
+        return getIndex().tickerSet();
     }
 
     public Map<String, List<String>> getSectorMap() {
-        return sectorMap;
+        return getIndex().sectorMap();
     }
 
     public List<String> getTickersForSector(String sector) {
         if (sector == null) return List.of();
-        return sectorMap.getOrDefault(sector.toLowerCase(), List.of());
+        return getIndex().sectorMap().getOrDefault(sector.toLowerCase(), List.of());
     }
 
     public boolean isAllowed(String ticker) {
-        if (ticker == null) return false;
-        return allowedTickers.contains(ticker.trim().toUpperCase());
+        return getIndex().contains(ticker);
     }
 
-    // ✅ ADD THIS (tags for recommender)
+    // tags for recommender (built once per index; read-only)
     public Map<String, String> getTickerTags() {
-        Map<String, String> tagByTicker = new HashMap<>();
+        return getIndex().tagMap();
+    }
 
-        // Tag all SP500 as "sp500"
-        for (String t : sp500Tickers) {
-            if (t != null && !t.isBlank()) {
-                tagByTicker.put(t.trim().toUpperCase(), "sp500");
+    /** Sector tag for a ticker ("sp500" unless it is in a custom sector). */
+    public String getTag(String ticker) {
+        return getIndex().tagOf(ticker);
+    }
+
+    /**
+     * Re-reads the universe sources and swaps the new index in. Keeps (and
+     * returns) the current index if a source fails to parse or the new
+     * universe is empty, e.g. a file caught half-written.
+     */
+    public UniverseIndex reload() {
+        synchronized (this) {
+            UniverseIndex fresh = load();
+            UniverseIndex current = index.get();
+            if (current != null && (fresh == null || fresh.size() == 0)) {
+                System.out.println("WARN: Universe reload " + (fresh == null ? "failed" : "was empty")
+                        + " (keeping " + current.size() + " tickers)");
+                return current;
             }
+            if (fresh == null) fresh = UniverseIndex.build(List.of(), Map.of());
+            index.set(fresh);
+            return fresh;
         }
+    }
 
-        // Override tags for custom sectors (tech/media/sport/fashion/food)
-        for (var entry : sectorMap.entrySet()) {
-            String sector = entry.getKey(); // already lowercased
-            for (String t : entry.getValue()) {
-                if (t != null && !t.isBlank()) {
-                    tagByTicker.put(t.trim().toUpperCase(), sector);
-                }
+    /** Reloads when the files under universe.dir have changed (no-op for the classpath universe). */
+    @Scheduled(fixedDelayString = "${universe.reload-check-ms:60000}")
+    public void reloadIfChanged() {
+        if (dir == null || index.get() == null) return;
+        if (stamp(dir) != sourceStamp) reload();
+    }
+
+    /**
+     * Compiles the universe sources into the binary index, e.g. at build time:
+     * java -cp target/classes:... com.portfolioai.service.UniverseService
+     * src/main/resources/universe target/classes/universe/universe.idx
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.out.println("Usage: UniverseService <source-dir> <index-file>");
+            System.exit(2);
+        }
+        Path src = Paths.get(args[0]);
+        UniverseIndex u = build(
+                loadSp500Safe(new FileSystemResource(src.resolve(SP500))),
+                loadCustomSectorsSafe(new FileSystemResource(src.resolve(SECTORS))));
+        if (u == null) {
+            System.out.println("Universe sources in " + src + " could not be parsed");
+            System.exit(1);
+        }
+
+        Path out = Paths.get(args[1]);
+        if (out.getParent() != null) Files.createDirectories(out.getParent());
+        try (OutputStream os = Files.newOutputStream(out);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(os))) {
+            u.write(data);
+        }
+        System.out.println("Wrote " + out + ": " + u.size() + " tickers, " + u.sectorCount() + " sectors");
+    }
+
+    // ---------- Loading ----------
+
+    // null if a source failed to parse
+    private UniverseIndex load() {
+        UniverseIndex u;
+        if (dir != null) {
+            // recorded even if parsing fails, so a broken file is retried once it changes again
+            sourceStamp = stamp(dir);
+            u = build(
+                    loadSp500Safe(new FileSystemResource(dir.resolve(SP500))),
+                    loadCustomSectorsSafe(new FileSystemResource(dir.resolve(SECTORS))));
+        } else {
+            u = readIndexSafe(new ClassPathResource(CLASSPATH_DIR + INDEX));
+            if (u == null) {
+                u = build(
+                        loadSp500Safe(new ClassPathResource(CLASSPATH_DIR + SP500)),
+                        loadCustomSectorsSafe(new ClassPathResource(CLASSPATH_DIR + SECTORS)));
             }
         }
-        return tagByTicker;
+        if (u != null) System.out.println("Universe loaded: " + u.size() + " tickers, sectors " + u.sectorMap().keySet());
+        return u;
+    }
+
+    private static UniverseIndex build(List<String> sp500, Map<String, List<String>> sectors) {
+        return sp500 == null || sectors == null ? null : UniverseIndex.build(sp500, sectors);
+    }
+
+    // last-modified of the two source files; changes when either is edited, added or removed
+    private static long stamp(Path dir) {
+        long s = 17;
+        for (String name : new String[]{SP500, SECTORS}) {
+            Path p = dir.resolve(name);
+            try {
+                s = 31 * s + (Files.exists(p) ? Files.getLastModifiedTime(p).toMillis() : -1);
+            } catch (Exception e) {
+                s = 31 * s - 1;
+            }
+        }
+        return s;
     }
 
     // ---------- Safe loaders ----------
+    // A missing or blank source loads as empty; one that cannot be read or parsed gives null.
+
+    private static UniverseIndex readIndexSafe(Resource res) {
+        if (!res.exists()) return null;
+        try (InputStream in = res.getInputStream();
+             DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            return UniverseIndex.read(data);
+        } catch (Exception e) {
+            System.out.println("WARN: Failed to read universe index (" + res.getDescription() + "): "
+                    + e.getMessage() + " (parsing sources)");
+            return null;
+        }
+    }
 
-    private Map<String, List<String>> loadCustomSectorsSafe(String classpath) {
+    private static Map<String, List<String>> loadCustomSectorsSafe(Resource res) {
         try {
-            ClassPathResource res = new ClassPathResource(classpath);
             if (!res.exists()) {
-                System.out.println("WARN: Missing " + classpath + " (using empty sector map)");
-                return new HashMap<>();
+                System.out.println("WARN: Missing " + res.getDescription() + " (using empty sector map)");
+                return Map.of();
             }
 
             try (InputStream in = res.getInputStream()) {
                 if (in.available() == 0) {
-                    System.out.println("WARN: " + classpath + " is blank (using empty sector map)");
-                    return new HashMap<>();
+                    System.out.println("WARN: " + res.getDescription() + " is blank (using empty sector map)");
+                    return Map.of();
                 }
 
-                Map<String, List<String>> raw = mapper.readValue(in, new TypeReference<>() {});
-                if (raw == null) return new HashMap<>();
-
-                Map<String, List<String>> out = new HashMap<>();
-                for (var entry : raw.entrySet()) {
-                    String key = entry.getKey() == null ? "" : entry.getKey().trim().toLowerCase();
-                    List<String> vals = entry.getValue() == null ? List.of() : entry.getValue();
-
-                    List<String> cleaned = vals.stream()
-                            .filter(Objects::nonNull)
-                            .map(String::trim)
-                            .filter(s -> !s.isEmpty())
-                            .map(String::toUpperCase)
-                            .distinct()
-                            .collect(Collectors.toList());
-
-                    if (!key.isEmpty()) out.put(key, cleaned);
-                }
-                return out;
+                // cleaned up (trim / case / duplicates) by UniverseIndex.build
+                Map<String, List<String>> raw = MAPPER.readValue(in, new TypeReference<LinkedHashMap<String, List<String>>>() {});
+                return raw == null ? Map.of() : raw;
             }
         } catch (Exception e) {
-            System.out.println("WARN: Failed to load custom sectors (" + classpath + "): " + e.getMessage());
-            return new HashMap<>();
+            System.out.println("WARN: Failed to load custom sectors (" + res.getDescription() + "): " + e.getMessage());
+            return null;
         }
     }
 
-    private Set<String> loadSp500Safe(String classpath) {
+    private static List<String> loadSp500Safe(Resource res) {
         try {
-            ClassPathResource res = new ClassPathResource(classpath);
             if (!res.exists()) {
-                System.out.println("WARN: Missing " + classpath + " (using empty sp500 list)");
-                return new HashSet<>();
+                System.out.println("WARN: Missing " + res.getDescription() + " (using empty sp500 list)");
+                return List.of();
             }
 
             try (BufferedReader br = new BufferedReader(
                     new InputStreamReader(res.getInputStream(), StandardCharsets.UTF_8)
             )) {
-                List<String> lines = br.lines().collect(Collectors.toList());
-                if (lines.isEmpty()) {
-                    System.out.println("WARN: " + classpath + " is blank (using empty sp500 list)");
-                    return new HashSet<>();
-                }
-
-                Set<String> out = new HashSet<>();
-                for (String line : lines) {
-                    if (line == null) continue;
+                List<String> out = new ArrayList<>();
+                String line;
+                while ((line = br.readLine()) != null) {
                     String s = line.trim();
                     if (s.isEmpty()) continue;
                     if (s.equalsIgnoreCase("ticker")) continue;
 
-                    String first = s.split(",")[0].trim().toUpperCase();
-                    if (!first.isEmpty()) out.add(first);
+                    int comma = s.indexOf(',');
+                    out.add(comma < 0 ? s : s.substring(0, comma));
+                }
+                if (out.isEmpty()) {
+                    System.out.println("WARN: " + res.getDescription() + " is blank (using empty sp500 list)");
                 }
                 return out;
             }
         } catch (Exception e) {
-            System.out.println("WARN: Failed to load sp500 csv (" + classpath + "): " + e.getMessage());
-            return new HashSet<>();
+            System.out.println("WARN: Failed to load sp500 csv (" + res.getDescription() + "): " + e.getMessage());
+            return null;
         }
     }
 }
@@ -0,0 +1,150 @@
+package com.portfolioai.service;
+
+import java.util.Arrays;
+
+/**
+ * Trailing-window metrics for several horizons plus rolling series, all in
+ * one pass over the last max(horizon) + rolling-window bars of a close series.
+ *
+ * Each horizon keeps its own Welford moments, peak and max drawdown, started
+ * at its first bar. The rolling window keeps running sums of returns and
+ * squared returns in a ring buffer (volatility) and a monotonic deque of
+ * close indices (rolling max, hence drawdown from the rolling peak), so every
+ * step is O(1) per horizon.
+ */
+public final class WindowMetrics {
+
+    public static final class Result {
+        public final int[] horizons;
+        public final boolean[] complete;
+        public final double[] totalReturn;
+        public final double[] volatility;
+        public final double[] maxDrawdown;
+
+        /** Close index in the input series of rolling[0]. */
+        public final int rollingStart;
+        public final double[] rollingVolatility; // NaN until the window is full
+        public final double[] rollingDrawdown;   // close / rolling max close - 1
+
+        Result(int[] horizons, boolean[] complete, double[] totalReturn, double[] volatility,
+               double[] maxDrawdown, int rollingStart, double[] rollingVolatility, double[] rollingDrawdown) {
+            this.horizons = horizons;
+            this.complete = complete;
+            this.totalReturn = totalReturn;
+            this.volatility = volatility;
+            this.maxDrawdown = maxDrawdown;
+            this.rollingStart = rollingStart;
+            this.rollingVolatility = rollingVolatility;
+            this.rollingDrawdown = rollingDrawdown;
+        }
+    }
+
+    private WindowMetrics() {
+    }
+
+    /**
+     * Parses a horizon like "1y", "6m", "63d" (or a bare number of days) into trading days.
+     */
+    public static int parseHorizon(String s) {
+        String v = s.trim().toLowerCase();
+        if (v.isEmpty()) throw new IllegalArgumentException("Empty horizon");
+        char unit = v.charAt(v.length() - 1);
+        if (Character.isDigit(unit)) return Integer.parseInt(v);
+        int n = Integer.parseInt(v.substring(0, v.length() - 1));
+        return switch (unit) {
+            case 'y' -> n * 252;
+            case 'm' -> n * 21;
+            case 'w' -> n * 5;
+            case 'd' -> n;
+            default -> throw new IllegalArgumentException("Unknown horizon unit: " + s);
+        };
+    }
+
+    /**
+     * @param horizons       window lengths in return periods (trading days)
+     * @param rollingWindow  rolling volatility / drawdown window in periods
+     */
+    public static Result compute(CloseSeries closes, int[] horizons, int rollingWindow) {
+        int n = closes.size();
+        int h = horizons.length;
+        int last = n - 1;
+
+        int span = rollingWindow;
+        for (int len : horizons) span = Math.max(span, len);
+        int from = Math.max(0, last - span); // first close index reported
+
+        int[] start = new int[h];
+        boolean[] complete = new boolean[h];
+        long[] count = new long[h];
+        double[] mean = new double[h];
+        double[] m2 = new double[h];
+        double[] peak = new double[h];
+        double[] maxDd = new double[h];
+        for (int k = 0; k < h; k++) {
+            start[k] = Math.max(0, last - horizons[k]);
+            complete[k] = last - horizons[k] >= 0;
+            peak[k] = n > 0 ? closes.close(start[k]) : 0;
+        }
+
+        int w = Math.max(2, rollingWindow);
+        int len = Math.max(0, last - from + 1);
+        double[] rollVol = new double[len];
+        double[] rollDd = new double[len];
+        double[] ring = new double[w];
+        double sum = 0, sumSq = 0;
+        int seen = 0;
+        int[] deque = new int[w + 2]; // close indices with decreasing closes
+        int head = 0, tail = 0;       // circular; never more than w + 1 entries
+
+        // start w bars early so the rolling window is already full at `from`
+        int begin = Math.max(0, from - w);
+        for (int t = begin; t <= last; t++) {
+            double c = closes.close(t);
+
+            // rolling max of the last w closes
+            while (head != tail && closes.close(deque[(tail - 1 + deque.length) % deque.length]) <= c) {
+                tail = (tail - 1 + deque.length) % deque.length;
+            }
+            deque[tail] = t;
+            tail = (tail + 1) % deque.length;
+            if (deque[head] <= t - w) head = (head + 1) % deque.length;
+            if (t >= from) rollDd[t - from] = c / closes.close(deque[head]) - 1.0;
+
+            if (t == begin) {
+                if (t >= from) rollVol[0] = Double.NaN;
+                continue;
+            }
+
+            double r = c / closes.close(t - 1) - 1.0;
+
+            // rolling volatility over the last w returns
+            int slot = seen % w;
+            sum += r - ring[slot];
+            sumSq += r * r - ring[slot] * ring[slot];
+            ring[slot] = r;
+            seen++;
+            if (t < from) continue;
+            rollVol[t - from] = seen >= w ? Math.sqrt(Math.max(0, sumSq / w - (sum / w) * (sum / w))) : Double.NaN;
+
+            for (int k = 0; k < h; k++) {
+                if (t <= start[k]) continue;
+                count[k]++;
+                double delta = r - mean[k];
+                mean[k] += delta / count[k];
+                m2[k] += delta * (r - mean[k]);
+                if (c > peak[k]) peak[k] = c;
+                double dd = c / peak[k] - 1.0;
+                if (dd < maxDd[k]) maxDd[k] = dd;
+            }
+        }
+
+        double[] totalReturn = new double[h];
+        double[] vol = new double[h];
+        for (int k = 0; k < h; k++) {
+            totalReturn[k] = n > 0 ? closes.close(last) / closes.close(start[k]) - 1.0 : 0;
+            vol[k] = count[k] > 0 ? Math.sqrt(m2[k] / count[k]) : 0;
+        }
+
+        return new Result(Arrays.copyOf(horizons, h), complete, totalReturn, vol, maxDd, from, rollVol, rollDd);
+    }
+}
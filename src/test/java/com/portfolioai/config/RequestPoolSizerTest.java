@@ -0,0 +1,73 @@
+package com.portfolioai.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+class RequestPoolSizerTest {
+
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    @Test
+    void blockingTasksGrowThePoolUpToMax() throws Exception {
+        RequestPoolSizer sizer = new RequestPoolSizer(2, 64);
+        ThreadPoolTaskExecutor executor = executor(sizer);
+
+        // ~all wall time is waiting
+        for (int i = 0; i < 4; i++) sizer.decorate(() -> sleep(20)).run();
+        int size = sizer.resize(executor);
+
+        assertTrue(sizer.waitRatio() > 5, "ratio " + sizer.waitRatio());
+        assertEquals(Math.min(64, Math.round(CORES * (1 + sizer.waitRatio()))), size);
+        assertEquals(size, executor.getCorePoolSize());
+        executor.shutdown();
+    }
+
+    @Test
+    void cpuBoundTasksKeepThePoolNearCoreCount() {
+        RequestPoolSizer sizer = new RequestPoolSizer(1, 64);
+        ThreadPoolTaskExecutor executor = executor(sizer);
+
+        for (int i = 0; i < 4; i++) sizer.decorate(RequestPoolSizerTest::spin).run();
+        int size = sizer.resize(executor);
+
+        assertTrue(size <= 2 * CORES, "size " + size);
+        executor.shutdown();
+    }
+
+    @Test
+    void noMeasurementsLeaveTheSizeAlone() {
+        RequestPoolSizer sizer = new RequestPoolSizer(3, 10);
+        ThreadPoolTaskExecutor executor = executor(sizer);
+        assertEquals(3, sizer.resize(executor));
+        assertEquals(-1, sizer.waitRatio());
+        executor.shutdown();
+    }
+
+    // ---- helpers ----
+
+    private static ThreadPoolTaskExecutor executor(RequestPoolSizer sizer) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(sizer.minSize());
+        executor.setMaxPoolSize(sizer.maxSize());
+        executor.initialize();
+        return executor;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void spin() {
+        long end = System.nanoTime() + 20_000_000L;
+        double x = 0;
+        while (System.nanoTime() < end) x += Math.sqrt(x + 1);
+        if (x < 0) throw new IllegalStateException();
+    }
+}
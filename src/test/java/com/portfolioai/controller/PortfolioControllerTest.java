@@ -0,0 +1,161 @@
+package com.portfolioai.controller;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.portfolioai.model.FrontierPoint;
+import com.portfolioai.model.FrontierRequest;
+import com.portfolioai.model.FrontierResponse;
+import com.portfolioai.service.BacktestService;
+import com.portfolioai.service.FreeAiStockPortfolioService;
+import com.portfolioai.service.MarketCalendar;
+import com.portfolioai.service.MarketDataFreeService;
+import com.portfolioai.service.MarketDataService;
+import com.portfolioai.service.MonteCarloService;
+import com.portfolioai.service.PortfolioService;
+import com.portfolioai.service.PriceMatrixService;
+import com.portfolioai.service.PriceSeries;
+import com.portfolioai.service.UniverseService;
+
+class PortfolioControllerTest {
+
+    @Test
+    void fullRequestPoolAnswers503() throws Exception {
+        TaskExecutor full = task -> {
+            throw new TaskRejectedException("pool and queue are full");
+        };
+        PortfolioController controller = new PortfolioController(
+                mock(PortfolioService.class), mock(BacktestService.class),
+                mock(FreeAiStockPortfolioService.class), mock(MarketDataFreeService.class),
+                mock(MonteCarloService.class), full);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        mvc.perform(post("/portfolio").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"));
+    }
+
+    @Test
+    void frontierIsServedOnTheRequestPool() throws Exception {
+        PortfolioService portfolioService = mock(PortfolioService.class);
+        when(portfolioService.frontier(any(FrontierRequest.class))).thenReturn(new FrontierResponse(6, "balanced",
+                List.of(new FrontierPoint(10, Map.of("VOO", 1.0), 0.08, 0.15, 12))));
+        PortfolioController controller = new PortfolioController(
+                portfolioService, mock(BacktestService.class),
+                mock(FreeAiStockPortfolioService.class), mock(MarketDataFreeService.class),
+                mock(MonteCarloService.class), Runnable::run);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        MvcResult started = mvc.perform(post("/portfolio/frontier").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"answers\": {}, \"points\": 5}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.risk_tier").value("balanced"))
+                .andExpect(jsonPath("$.points[0].volatility").value(0.15));
+    }
+
+    @Test
+    void slowPriceLoadsDoNotHoldServletThreads() throws Exception {
+        // Stooq stand-in: every load blocks until released, like a slow download
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch loading = new CountDownLatch(1);
+        MarketDataFreeService prices = mock(MarketDataFreeService.class);
+        when(prices.loadDailyClosesUS(anyString())).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return series(800);
+        });
+        UniverseService universe = mock(UniverseService.class);
+        when(universe.isAllowed(anyString())).thenReturn(true);
+        BacktestService backtests = new BacktestService(new MarketDataService(prices, universe,
+                mock(PriceMatrixService.class), "drop", "sample", 5, 0.94, 0),
+                "periodic", 21, 0.05, 5, 63, 0, 260);
+
+        ThreadPoolTaskExecutor requestPool = new ThreadPoolTaskExecutor();
+        requestPool.setCorePoolSize(4);
+        requestPool.setMaxPoolSize(4);
+        requestPool.setQueueCapacity(16);
+        requestPool.initialize();
+        ExecutorService servlet = Executors.newFixedThreadPool(2); // stands in for the container's threads
+        try {
+            PortfolioController controller = new PortfolioController(
+                    mock(PortfolioService.class), backtests,
+                    mock(FreeAiStockPortfolioService.class), prices,
+                    mock(MonteCarloService.class), requestPool);
+            MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+            // async: 6 requests on 2 servlet threads all get handed off while every load is still blocked
+            List<Future<MvcResult>> inFlight = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                String body = "{\"weights\": {\"T" + i + "\": 1.0}}";
+                inFlight.add(servlet.submit(() -> mvc.perform(post("/backtest")
+                                .contentType(MediaType.APPLICATION_JSON).content(body))
+                        .andExpect(request().asyncStarted())
+                        .andReturn()));
+            }
+            List<MvcResult> started = new ArrayList<>();
+            for (Future<MvcResult> f : inFlight) started.add(f.get(5, TimeUnit.SECONDS));
+            assertTrue(loading.await(5, TimeUnit.SECONDS), "loads are in flight");
+
+            // servlet-thread handling of the same work would keep the thread until the load returns
+            Future<?> sync = servlet.submit(() -> backtests.backtest(Map.of("SYNC", 1.0)));
+            assertThrows(TimeoutException.class, () -> sync.get(300, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            sync.get(10, TimeUnit.SECONDS);
+            for (MvcResult r : started) {
+                r.getAsyncResult(10_000);
+                mvc.perform(asyncDispatch(r)).andExpect(status().isOk());
+            }
+        } finally {
+            release.countDown();
+            servlet.shutdownNow();
+            requestPool.shutdown();
+        }
+    }
+
+    // ---- helpers ----
+
+    // daily closes ending on the last completed session
+    private static PriceSeries series(int n) {
+        int last = (int) MarketCalendar.lastCompletedSession().toEpochDay();
+        int[] days = new int[n];
+        double[] closes = new double[n];
+        for (int i = 0; i < n; i++) {
+            days[i] = last - (n - 1 - i);
+            closes[i] = 100 * (1 + 0.0005 * i + 0.01 * Math.sin(i));
+        }
+        return PriceSeries.of(days, closes);
+    }
+}
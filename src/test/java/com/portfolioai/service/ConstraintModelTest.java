@@ -0,0 +1,93 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class ConstraintModelTest {
+
+    private static final List<String> ASSETS = List.of("VOO", "VXUS", "BND");
+    private static final Map<String, List<String>> GROUPS = Map.of(
+            "eq", List.of("VOO", "VXUS"),
+            "bond", List.of("BND"));
+
+    @Test
+    void aliasedProjectionMatchesSeparateOutput() {
+        SplittableRandom rnd = new SplittableRandom(42);
+        for (int trial = 0; trial < 20_000; trial++) {
+            ConstraintModel c = randomGroupModel(rnd);
+            double[] v = new double[c.size()];
+            for (int i = 0; i < v.length; i++) v[i] = rnd.nextDouble(-1, 2);
+
+            double[] separate = new double[v.length];
+            c.project(v, separate);
+            double[] aliased = v.clone();
+            c.project(aliased, aliased);
+
+            assertArrayEquals(separate, aliased, 1e-12, "trial " + trial);
+            assertTrue(c.violation(aliased) < 1e-9, "trial " + trial);
+        }
+    }
+
+    @Test
+    void projectionIsClosestFeasiblePoint() {
+        // eq in [0.6, 0.8], bond in [0.2, 0.4]
+        ConstraintModel c = ConstraintModel.compile(ASSETS, GROUPS,
+                Map.of("eq_min", 0.6, "eq_max", 0.8, "bond_min", 0.2, "bond_max", 0.4));
+        double[] v = {0.1, 0.1, 0.8};
+        double[] w = v.clone();
+        c.project(w, w);
+
+        assertTrue(c.violation(w) < 1e-12);
+        double best = dist(v, w);
+        // no point on a fine grid of the feasible set is closer
+        for (double a = 0; a <= 1; a += 0.005) {
+            for (double b = 0; a + b <= 1; b += 0.005) {
+                double[] p = {a, b, 1 - a - b};
+                if (c.violation(p) < 1e-12) assertTrue(dist(v, p) >= best - 1e-9);
+            }
+        }
+        assertEquals(0.3, w[0], 1e-9);
+        assertEquals(0.3, w[1], 1e-9);
+        assertEquals(0.4, w[2], 1e-9);
+    }
+
+    @Test
+    void feasibleStartSatisfiesGroups() {
+        ConstraintModel c = ConstraintModel.compile(ASSETS, GROUPS, Map.of("eq_min", 0.9));
+        double[] w = c.feasibleStart();
+        assertTrue(c.violation(w) < 1e-12);
+        assertEquals(0.9, w[0] + w[1], 1e-9);
+    }
+
+    // ---- helpers ----
+
+    // 2 disjoint groups over 6 assets, plus 2 ungrouped, with feasible random bands
+    private static ConstraintModel randomGroupModel(SplittableRandom rnd) {
+        int n = 8;
+        double[] lo = new double[n];
+        double[] hi = new double[n];
+        int[] groupOf = {0, 0, 0, 1, 1, 1, -1, -1};
+        for (int i = 0; i < n; i++) {
+            lo[i] = rnd.nextDouble(0, 0.05);
+            hi[i] = groupOf[i] < 0 ? 1 : lo[i] + rnd.nextDouble(0.2, 1);
+        }
+        double g0 = rnd.nextDouble(0.2, 0.5);
+        double g1 = rnd.nextDouble(0.2, 0.35);
+        double[] gMin = {g0, g1};
+        double[] gMax = {g0 + rnd.nextDouble(0, 0.2), g1 + rnd.nextDouble(0, 0.2)};
+        return new ConstraintModel(lo, hi, groupOf, gMin, gMax);
+    }
+
+    private static double dist(double[] a, double[] b) {
+        double s = 0;
+        for (int i = 0; i < a.length; i++) s += (a[i] - b[i]) * (a[i] - b[i]);
+        return Math.sqrt(s);
+    }
+}
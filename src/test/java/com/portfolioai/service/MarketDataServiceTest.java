@@ -0,0 +1,57 @@
+package com.portfolioai.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class MarketDataServiceTest {
+
+    @Test
+    void resultsEndingOnTheSessionAreCached() throws Exception {
+        MarketDataFreeService prices = pricesEndingDaysBefore(0);
+        MarketDataService service = service(prices);
+
+        service.loadReturns(List.of("VOO"), 1);
+        service.loadReturns(List.of("VOO"), 1);
+
+        verify(prices, times(1)).loadDailyClosesUS("VOO");
+    }
+
+    @Test
+    void resultsBehindTheSessionAreRecomputed() throws Exception {
+        // loaded after the close but before Stooq published the session's bar
+        MarketDataFreeService prices = pricesEndingDaysBefore(1);
+        MarketDataService service = service(prices);
+
+        service.loadReturns(List.of("VOO"), 1);
+        service.loadReturns(List.of("VOO"), 1);
+
+        verify(prices, times(2)).loadDailyClosesUS("VOO");
+    }
+
+    // ---- helpers ----
+
+    // late retry 0: a result behind the session is never served from the cache
+    private static MarketDataService service(MarketDataFreeService prices) {
+        return new MarketDataService(prices, mock(UniverseService.class), mock(PriceMatrixService.class),
+                "drop", "sample", 5, 0.94, 0);
+    }
+
+    private static MarketDataFreeService pricesEndingDaysBefore(int lag) {
+        int last = (int) MarketCalendar.lastCompletedSession().toEpochDay() - lag;
+        int[] days = new int[30];
+        double[] closes = new double[30];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = last - (days.length - 1 - i);
+            closes[i] = 100 + (i % 3);
+        }
+        MarketDataFreeService prices = mock(MarketDataFreeService.class);
+        when(prices.loadDailyClosesUS("VOO")).thenReturn(PriceSeries.of(days, closes));
+        return prices;
+    }
+}
@@ -0,0 +1,61 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class MeanVarianceSolverTest {
+
+    private static final List<String> ASSETS = List.of("VOO", "VXUS", "BND");
+    private static final Map<String, List<String>> GROUPS = Map.of(
+            "eq", List.of("VOO", "VXUS"),
+            "bond", List.of("BND"));
+
+    @Test
+    void groupConstrainedSolveIsNoWorseThanGridSearch() {
+        SplittableRandom rnd = new SplittableRandom(7);
+        MeanVarianceSolver solver = new MeanVarianceSolver(1e-10, 10_000);
+
+        for (int trial = 0; trial < 300; trial++) {
+            double[] mu = {rnd.nextDouble(0, 5e-4), rnd.nextDouble(0, 5e-4), rnd.nextDouble(0, 2e-4)};
+            double[][] cov = randomCov(rnd);
+            double eqMin = rnd.nextDouble(0.2, 0.6);
+            ConstraintModel c = ConstraintModel.compile(ASSETS, GROUPS,
+                    Map.of("eq_min", eqMin, "eq_max", eqMin + 0.2, "bond_min", 0.1));
+
+            MeanVarianceSolver.Result res = solver.solve(mu, cov, 1.0, c);
+            assertTrue(res.converged, "trial " + trial);
+            assertTrue(c.violation(res.weights) < 1e-9, "trial " + trial);
+
+            double got = MeanVarianceSolver.objective(mu, cov, 1.0, res.weights);
+            double best = Double.POSITIVE_INFINITY;
+            for (double a = 0; a <= 1; a += 0.01) {
+                for (double b = 0; a + b <= 1 + 1e-12; b += 0.01) {
+                    double[] w = {a, b, Math.max(0, 1 - a - b)};
+                    if (c.violation(w) < 1e-12) best = Math.min(best, MeanVarianceSolver.objective(mu, cov, 1.0, w));
+                }
+            }
+            assertTrue(got <= best + 1e-12, "trial " + trial + ": " + got + " > grid " + best);
+        }
+    }
+
+    // ---- helpers ----
+
+    // A A' + small ridge, daily-return scale
+    private static double[][] randomCov(SplittableRandom rnd) {
+        double[][] a = new double[3][3];
+        for (double[] row : a) for (int j = 0; j < 3; j++) row[j] = rnd.nextDouble(-0.01, 0.01);
+        double[][] cov = new double[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 3; k++) cov[i][j] += a[i][k] * a[j][k];
+            }
+            cov[i][i] += 1e-6;
+        }
+        return cov;
+    }
+}
@@ -0,0 +1,72 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.portfolioai.model.HorizonMetrics;
+import com.portfolioai.model.StockMetrics;
+
+class MetricsServiceTest {
+
+    @Test
+    void refreshOverNewBarsMatchesAFullRebuild() {
+        PriceSeries history = randomWalk(2000, 7);
+        MetricsService incremental = service();
+        StockMetrics first = incremental.compute("ABC", history);
+
+        // nothing new: the previous metrics are reused
+        assertSame(first, incremental.compute("ABC", history));
+
+        PriceSeries longer = randomWalk(2003, 7);
+        StockMetrics advanced = incremental.compute("ABC", longer);
+        assertNotSame(first, advanced);
+
+        StockMetrics rebuilt = service().compute("ABC", longer);
+        assertMetricsEqual(rebuilt, advanced);
+    }
+
+    // ---- helpers ----
+
+    private static MetricsService service() {
+        return new MetricsService(null, null, new MetricsStateStore("unused", false),
+                1, 1, new String[]{"1y", "3y", "5y"}, 63);
+    }
+
+    // same seed -> same prefix, so a longer walk is the shorter one plus new bars
+    private static PriceSeries randomWalk(int n, long seed) {
+        Random rnd = new Random(seed);
+        int[] days = new int[n];
+        double[] closes = new double[n];
+        double c = 100;
+        for (int i = 0; i < n; i++) {
+            c *= 1 + 0.02 * rnd.nextGaussian();
+            days[i] = 10_000 + i;
+            closes[i] = c;
+        }
+        return PriceSeries.of(days, closes);
+    }
+
+    private static void assertMetricsEqual(StockMetrics expected, StockMetrics actual) {
+        assertEquals(expected.totalReturn, actual.totalReturn, 1e-9);
+        assertEquals(expected.volatility, actual.volatility, 1e-12);
+        assertEquals(expected.maxDrawdown, actual.maxDrawdown, 1e-12);
+        assertEquals(expected.momentum, actual.momentum, 1e-12);
+        assertEquals(expected.rollingVolatility, actual.rollingVolatility, 1e-12);
+        assertEquals(expected.maxRollingVolatility, actual.maxRollingVolatility, 1e-12);
+        assertEquals(expected.worstRollingDrawdown, actual.worstRollingDrawdown, 1e-12);
+        assertEquals(expected.horizons.keySet(), actual.horizons.keySet());
+        for (String h : expected.horizons.keySet()) {
+            HorizonMetrics e = expected.horizons.get(h);
+            HorizonMetrics a = actual.horizons.get(h);
+            assertEquals(e.complete, a.complete, h);
+            assertEquals(e.totalReturn, a.totalReturn, 1e-9, h);
+            assertEquals(e.volatility, a.volatility, 1e-12, h);
+            assertEquals(e.maxDrawdown, a.maxDrawdown, 1e-12, h);
+        }
+    }
+}
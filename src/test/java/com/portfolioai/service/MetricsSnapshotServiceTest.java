@@ -0,0 +1,54 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class MetricsSnapshotServiceTest {
+
+    @Test
+    void matrixRebuildRunsOutsideTheBuildLock() throws Exception {
+        MetricsService metrics = mock(MetricsService.class);
+        when(metrics.computeAllMetrics()).thenReturn(List.of());
+
+        // the first matrix rebuild blocks until released
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        PriceMatrixService matrix = mock(PriceMatrixService.class);
+        doAnswer(inv -> {
+            if (calls.incrementAndGet() == 1) {
+                entered.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(matrix).rebuild();
+
+        MetricsSnapshotService service = new MetricsSnapshotService(metrics, matrix, false);
+        try {
+            CompletableFuture<MetricsSnapshot> first = CompletableFuture.supplyAsync(service::rebuild);
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            assertEquals(1, service.current().getVersion(), "published before the matrix rebuild");
+
+            // a second rebuild is not held up by the first one's matrix rebuild
+            CompletableFuture<MetricsSnapshot> second = CompletableFuture.supplyAsync(service::rebuild);
+            assertEquals(2, second.get(5, TimeUnit.SECONDS).getVersion());
+
+            release.countDown();
+            assertEquals(1, first.get(5, TimeUnit.SECONDS).getVersion());
+        } finally {
+            release.countDown();
+            service.shutdown();
+        }
+    }
+}
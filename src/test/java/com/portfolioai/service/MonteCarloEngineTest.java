@@ -0,0 +1,34 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class MonteCarloEngineTest {
+
+    @Test
+    void sameSeedGivesSameResultOnAnyPool() {
+        double[] mu = {3e-4, 1e-4};
+        RiskModel risk = new DenseRiskModel(new double[][]{{1e-4, 2e-5}, {2e-5, 4e-5}});
+        double[] w = {0.6, 0.4};
+
+        MonteCarloEngine.Options options = new MonteCarloEngine.Options();
+        options.paths = 10_000;
+        options.horizonDays = 100;
+        MonteCarloEngine.Result common = MonteCarloEngine.simulate(mu, risk, null, w, options);
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            options.pool = single;
+            MonteCarloEngine.Result dedicated = MonteCarloEngine.simulate(mu, risk, null, w, options);
+            assertArrayEquals(common.terminalWealth, dedicated.terminalWealth);
+            assertArrayEquals(common.maxDrawdown, dedicated.maxDrawdown);
+            assertEquals(common.meanTerminalWealth, dedicated.meanTerminalWealth);
+        } finally {
+            single.shutdown();
+        }
+    }
+}
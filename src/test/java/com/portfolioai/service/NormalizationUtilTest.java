@@ -0,0 +1,21 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class NormalizationUtilTest {
+
+    @Test
+    void parseRejectsUnknownNames() {
+        assertEquals(NormalizationUtil.Method.MIN_MAX, NormalizationUtil.Method.parse(null));
+        assertEquals(NormalizationUtil.Method.MIN_MAX, NormalizationUtil.Method.parse(" "));
+        assertEquals(NormalizationUtil.Method.MIN_MAX, NormalizationUtil.Method.parse("min-max"));
+        assertEquals(NormalizationUtil.Method.Z_SCORE, NormalizationUtil.Method.parse("Z-Score"));
+        assertEquals(NormalizationUtil.Method.RANK, NormalizationUtil.Method.parse("rank"));
+
+        // a typo in ai.stocks.scoring.normalizer must fail startup, not quietly score with min-max
+        assertThrows(IllegalArgumentException.class, () -> NormalizationUtil.Method.parse("zscroe"));
+    }
+}
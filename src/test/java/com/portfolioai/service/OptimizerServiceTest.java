@@ -0,0 +1,37 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.portfolioai.model.FrontierPoint;
+
+class OptimizerServiceTest {
+
+    private static final List<String> ASSETS = List.of("VOO", "VXUS", "BND");
+
+    @Test
+    void frontierRunsOnItsOwnPoolInVolatilityOrder() {
+        OptimizerService optimizer = new OptimizerService(1e-10, 10_000, 1e-8, 100, 10_000, 3);
+        try {
+            double[] mu = {4e-4, 3e-4, 1e-4};
+            double[][] cov = {
+                    {1.0e-4, 6.0e-5, 1.0e-6},
+                    {6.0e-5, 1.2e-4, 2.0e-6},
+                    {1.0e-6, 2.0e-6, 1.0e-5}};
+
+            List<FrontierPoint> points = optimizer.efficientFrontier(ASSETS, mu, cov, ConstraintModel.longOnly(3), 10);
+
+            assertEquals(10, points.size());
+            for (int k = 1; k < points.size(); k++) {
+                assertTrue(points.get(k).volatility >= points.get(k - 1).volatility - 1e-9, "point " + k);
+                assertTrue(points.get(k).expected_return >= points.get(k - 1).expected_return - 1e-9, "point " + k);
+            }
+        } finally {
+            optimizer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PriceCacheTest {
+
+    @Test
+    void dueKeysAreNotReportedTwiceWhileInFlight() {
+        PriceCache cache = new PriceCache(1 << 20);
+        cache.put("ABC", series(), 100, 1000);
+        cache.get("ABC", 50); // only entries that were read are refreshed ahead
+
+        assertEquals(List.of("ABC"), cache.dueForRefresh(200));
+        assertTrue(cache.dueForRefresh(300).isEmpty(), "still being refreshed");
+
+        // refresh failed, entry kept: due again on the next check
+        cache.refreshDone("ABC");
+        assertEquals(List.of("ABC"), cache.dueForRefresh(400));
+
+        // refresh succeeded: the new entry is not due until its own refreshAt
+        cache.put("ABC", series(), 2000, 3000);
+        cache.get("ABC", 500);
+        assertTrue(cache.dueForRefresh(500).isEmpty());
+        assertEquals(List.of("ABC"), cache.dueForRefresh(2000));
+    }
+
+    @Test
+    void refreshesDoNotCountAsUses() {
+        PriceCache cache = new PriceCache(2 * series().sizeInBytes());
+        cache.put("OLD", series(), 100, 1000);
+        cache.put("NEW", series(), 100, 1000);
+        cache.get("OLD", 50);
+        cache.get("NEW", 60); // OLD is least recently read
+
+        // failed refresh of OLD, then a successful one: neither is a read
+        assertEquals(List.of("OLD", "NEW"), cache.dueForRefresh(200));
+        cache.refreshDone("OLD");
+        cache.put("NEW", series(), 2000, 3000);
+        cache.refreshDone("NEW");
+        assertEquals(List.of("OLD"), cache.dueForRefresh(300));
+        cache.put("OLD", series(), 2000, 3000);
+        cache.refreshDone("OLD");
+
+        cache.put("ABC", series(), 2000, 3000);
+        assertNull(cache.get("OLD", 400), "evicted as least recently read");
+        assertNotNull(cache.get("NEW", 400));
+        assertEquals(1, cache.stats().evictions);
+    }
+
+    // ---- helpers ----
+
+    private static PriceSeries series() {
+        return PriceSeries.of(new int[]{1, 2, 3}, new double[]{10, 11, 12});
+    }
+}
@@ -0,0 +1,65 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PriceMatrixTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void returnsMatchReturnsAlignerForBothPolicies() throws Exception {
+        SplittableRandom rnd = new SplittableRandom(3);
+        PriceSeries a = randomSeries(rnd, 19_000, 400);
+        PriceSeries b = randomSeries(rnd, 19_020, 400);
+        // trades on odd days only, so the matrix calendar has dates neither a nor b traded
+        PriceSeries other = PriceSeries.of(new int[]{19_105, 19_205, 19_333}, new double[]{1, 2, 3});
+
+        Map<String, CloseSeries> data = Map.of("AAA", a, "BBB", b, "OTH", other, "NIL", PriceSeries.empty());
+        Path file = dir.resolve("u.pxm");
+        PriceMatrix.write(file, List.of("AAA", "OTH", "BBB", "NIL"), data::get, 19_500);
+        PriceMatrix m = PriceMatrix.open(file);
+
+        int[] rows = {m.indexOf("AAA"), m.indexOf("BBB")};
+        for (ReturnsAligner.MissingDataPolicy policy : ReturnsAligner.MissingDataPolicy.values()) {
+            for (int maxPeriods : new int[]{50, 10_000}) {
+                ReturnsMatrix got = m.returns(rows, policy, maxPeriods);
+                ReturnsMatrix want = ReturnsAligner.align(List.of(a, b), policy, maxPeriods);
+                assertEquals(want.periods(), got.periods(), policy + " " + maxPeriods);
+                for (int t = 0; t < want.periods(); t++) assertEquals(want.day(t), got.day(t));
+                assertArrayEquals(want.data(), got.data(), 1e-15);
+            }
+        }
+
+        int nil = m.indexOf("NIL");
+        assertEquals(Integer.MIN_VALUE, m.lastDay(nil));
+        assertEquals(0, m.returns(new int[]{rows[0], nil}, ReturnsAligner.MissingDataPolicy.FORWARD_FILL, 100).periods());
+    }
+
+    // ---- helpers ----
+
+    // every other day (even epoch days from an even start) with ~5% gaps
+    private static PriceSeries randomSeries(SplittableRandom rnd, int start, int len) {
+        List<Integer> days = new ArrayList<>();
+        List<Double> closes = new ArrayList<>();
+        double p = 100;
+        for (int i = 0; i < len; i++) {
+            if (rnd.nextDouble() < 0.05) continue;
+            p *= 1 + rnd.nextDouble(-0.02, 0.02);
+            days.add(start + 2 * i);
+            closes.add(p);
+        }
+        return PriceSeries.of(days.stream().mapToInt(Integer::intValue).toArray(),
+                closes.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+}
@@ -0,0 +1,40 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PriceStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaceRewritesTheWholeHistory() {
+        PriceStore store = new PriceStore(dir.toString(), true);
+
+        store.append("ABC", Integer.MIN_VALUE, bars(100, 3, 10.0));
+        store.append("ABC", 102, bars(102, 3, 11.0)); // day 102 is skipped as already stored
+        assertEquals(5, store.read("ABC").size());
+
+        // e.g. after a 2:1 split every close is re-based
+        store.replace("ABC", bars(100, 6, 5.0));
+        PriceBars read = store.read("ABC");
+        assertEquals(6, read.size());
+        assertEquals(100, read.day(0));
+        assertEquals(105, read.lastDay());
+        assertEquals(5.0, read.close(0));
+
+        store.append("ABC", read.lastDay(), bars(105, 2, 5.5));
+        assertEquals(7, store.read("ABC").size());
+    }
+
+    private static PriceBars bars(int firstDay, int count, double close) {
+        PriceBars b = new PriceBars(count);
+        for (int i = 0; i < count; i++) b.add(firstDay + i, close, close, close, close, 1000);
+        return b;
+    }
+}
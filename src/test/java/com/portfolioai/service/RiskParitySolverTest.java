@@ -0,0 +1,102 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class RiskParitySolverTest {
+
+    private static final List<String> ASSETS = List.of("VOO", "VXUS", "BND");
+    private static final Map<String, List<String>> GROUPS = Map.of(
+            "eq", List.of("VOO", "VXUS"),
+            "bond", List.of("BND"));
+
+    // equities ~16-18% vol, bonds ~5%: ERC is bond heavy
+    private static final double[][] COV = {
+            {1.0e-4, 0.8e-4, 0.05e-4},
+            {0.8e-4, 1.3e-4, 0.05e-4},
+            {0.05e-4, 0.05e-4, 0.1e-4}};
+
+    private final RiskParitySolver solver = new RiskParitySolver(1e-8, 100, 10_000);
+
+    @Test
+    void unconstrainedContributionsMatchBudgets() {
+        RiskParitySolver.Result res = solver.solve(COV, ConstraintModel.longOnly(3));
+        assertTrue(res.converged);
+        for (double rc : res.riskContributions) assertEquals(1.0 / 3, rc, 1e-8);
+        assertTrue(res.residual < 1e-8);
+    }
+
+    @Test
+    void bindingLimitsSolveTheConstrainedProblem() {
+        ConstraintModel c = ConstraintModel.compile(ASSETS, GROUPS, Map.of("eq_min", 0.6, "eq_max", 0.8));
+        RiskParitySolver.Result res = solver.solve(COV, c);
+
+        assertTrue(res.converged);
+        assertTrue(c.violation(res.weights) < 1e-9);
+        assertEquals(0.6, res.weights[0] + res.weights[1], 1e-9);
+        // budgets cannot be met, and the residual says so
+        assertTrue(res.residual > 0.01);
+
+        // no feasible grid point has a lower barrier objective
+        double got = barrier(res.weights, c);
+        for (double a = 0.001; a < 0.8; a += 0.002) {
+            for (double b = 0.001; a + b < 1; b += 0.002) {
+                double[] w = {a, b, 1 - a - b};
+                if (c.violation(w) < 1e-12) assertTrue(barrier(w, c) >= got - 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void randomProblemsConvergeToFeasibleStationaryPoints() {
+        SplittableRandom rnd = new SplittableRandom(11);
+        for (int trial = 0; trial < 200; trial++) {
+            double[][] cov = new double[3][3];
+            double[][] a = new double[3][3];
+            for (double[] row : a) for (int j = 0; j < 3; j++) row[j] = rnd.nextDouble(-0.01, 0.01);
+            for (int i = 0; i < 3; i++) {
+                for (int j = 0; j < 3; j++) for (int k = 0; k < 3; k++) cov[i][j] += a[i][k] * a[j][k];
+                cov[i][i] += 1e-6;
+            }
+            double eqMin = rnd.nextDouble(0.1, 0.8);
+            ConstraintModel c = ConstraintModel.compile(ASSETS, GROUPS,
+                    Map.of("eq_min", eqMin, "eq_max", Math.min(0.95, eqMin + 0.1)));
+
+            RiskParitySolver.Result res = solver.solve(cov, c);
+            assertTrue(res.converged, "trial " + trial);
+            assertTrue(c.violation(res.weights) < 1e-9, "trial " + trial);
+            for (double w : res.weights) assertTrue(w > 0, "trial " + trial);
+        }
+    }
+
+    @Test
+    void iterationCapReportsNotConverged() {
+        ConstraintModel c = ConstraintModel.compile(ASSETS, GROUPS, Map.of("eq_min", 0.6, "eq_max", 0.8));
+        RiskParitySolver.Result res = new RiskParitySolver(1e-8, 100, 1).solve(COV, c);
+        assertFalse(res.converged);
+    }
+
+    // ---- helpers ----
+
+    // the constrained risk-budgeting objective, up to the same positive scale the solver uses
+    private static double barrier(double[] w, ConstraintModel c) {
+        double[] erc = new RiskParitySolver(1e-12, 100, 10_000).solve(COV, null).weights;
+        double var = quad(erc);
+        double f = 0.5 * quad(w) / var;
+        for (double x : w) f -= Math.log(x) / 3;
+        return f;
+    }
+
+    private static double quad(double[] w) {
+        double s = 0;
+        for (int i = 0; i < 3; i++) for (int j = 0; j < 3; j++) s += w[i] * COV[i][j] * w[j];
+        return s;
+    }
+}
@@ -0,0 +1,79 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.portfolioai.model.HorizonMetrics;
+import com.portfolioai.model.StockMetrics;
+
+class ScoringPipelineTest {
+
+    private static final Map<String, Map<ScoringPipeline.Factor, Double>> RETURN_ONLY =
+            Map.of("balanced", Map.of(ScoringPipeline.Factor.RETURN, 1.0));
+
+    @Test
+    void incompleteHorizonRowsAreNotScored() {
+        // YNG has one year of history: its "3y" return is really a 1y return and must not rank
+        MetricsSnapshot snapshot = new MetricsSnapshot(1, Instant.EPOCH, List.of(
+                stock("AAA", 0.9, true),
+                stock("BBB", 0.3, true),
+                stock("YNG", 5.0, false)));
+
+        ScoringPipeline p = new ScoringPipeline(NormalizationUtil.Method.MIN_MAX, "3y", RETURN_ONLY);
+        double[] scores = p.scores(snapshot, "balanced");
+
+        assertEquals(1.0, scores[0]);
+        assertEquals(0.0, scores[1]); // min-max over complete rows only
+        assertEquals(Double.NEGATIVE_INFINITY, scores[2]);
+        assertArrayEquals(new boolean[]{true, true, false}, p.scoredRows(snapshot));
+        assertEquals("3y", p.horizonUsed(snapshot));
+    }
+
+    @Test
+    void horizonNobodyCoversFallsBackToLifetime() {
+        MetricsSnapshot snapshot = new MetricsSnapshot(1, Instant.EPOCH, List.of(
+                stock("AAA", 0.9, false),
+                stock("BBB", 0.3, false)));
+
+        ScoringPipeline p = new ScoringPipeline(NormalizationUtil.Method.MIN_MAX, "3y", RETURN_ONLY);
+        double[] scores = p.scores(snapshot, "balanced");
+
+        // lifetime return is 1 / horizon return in stock(), so BBB ranks first here
+        assertEquals(0.0, scores[0]);
+        assertEquals(1.0, scores[1]);
+        assertArrayEquals(new boolean[]{true, true}, p.scoredRows(snapshot));
+        assertNull(p.horizonUsed(snapshot)); // reported as full history, not "3y"
+    }
+
+    @Test
+    void horizonMustBeOneOfTheComputedHorizons() {
+        ScoringPipeline p = new ScoringPipeline(NormalizationUtil.Method.MIN_MAX, "4y", RETURN_ONLY);
+        assertThrows(IllegalArgumentException.class, () -> p.requireHorizonIn(new String[]{"1y", "3y", "5y"}));
+
+        new ScoringPipeline(NormalizationUtil.Method.MIN_MAX, "3Y", RETURN_ONLY).requireHorizonIn(new String[]{"1y", " 3y"});
+        new ScoringPipeline(NormalizationUtil.Method.MIN_MAX, "", RETURN_ONLY).requireHorizonIn(new String[]{"1y"});
+    }
+
+    // ---- helpers ----
+
+    private static StockMetrics stock(String ticker, double horizonReturn, boolean complete) {
+        HorizonMetrics h = new HorizonMetrics();
+        h.days = 756;
+        h.complete = complete;
+        h.totalReturn = horizonReturn;
+
+        StockMetrics m = new StockMetrics();
+        m.ticker = ticker;
+        m.totalReturn = 1.0 / horizonReturn;
+        m.horizons = Map.of("3y", h);
+        return m;
+    }
+}
@@ -0,0 +1,48 @@
+package com.portfolioai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UniverseServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reloadKeepsTheCurrentIndexWhenSourcesAreBrokenOrEmpty() throws Exception {
+        write("sp500.csv", "ticker\nAAPL\nMSFT\n");
+        write("custom_sectors.json", "{\"ai\": [\"NVDA\"]}");
+        UniverseService service = new UniverseService(dir.toString());
+        UniverseIndex first = service.getIndex();
+        assertEquals(3, first.size());
+
+        // half-written JSON: parse error
+        write("custom_sectors.json", "{\"ai\": [\"NVDA\"");
+        assertSame(first, service.reload());
+        assertSame(first, service.getIndex());
+
+        // both sources empty
+        write("sp500.csv", "");
+        write("custom_sectors.json", "");
+        assertSame(first, service.reload());
+
+        write("sp500.csv", "AAPL\n");
+        write("custom_sectors.json", "{}");
+        UniverseIndex fixed = service.reload();
+        assertNotSame(first, fixed);
+        assertEquals(1, service.getIndex().size());
+    }
+
+    // ---- helpers ----
+
+    private void write(String name, String content) throws Exception {
+        Files.writeString(dir.resolve(name), content);
+    }
+}